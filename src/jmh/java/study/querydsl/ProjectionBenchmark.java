@@ -0,0 +1,161 @@
+package study.querydsl;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ColumnarBuffer;
+import study.querydsl.repository.support.DirectProjections;
+import study.querydsl.service.MemberBulkIngestService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 프로젝션 방식별 조회 비용 비교.
+ * rows 건을 in-memory H2에 넣어두고 전체를 조회한다. ops/s 와 gc 프로파일러의 gc.alloc.rate.norm(B/op)을 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    ColumnarBuffer columnarBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(   // application.yml 보다 우선하도록 커맨드라인 인자로 전달
+                        "--spring.datasource.url=jdbc:h2:mem:jmh",
+                        "--logging.level.org.hibernate.SQL=info",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false");
+
+        Team team = new Team("teamA");
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status ->
+                context.getBean(EntityManager.class).persist(team));
+        context.getBean(MemberBulkIngestService.class).ingest(IntStream.range(0, rows)
+                .mapToObj(i -> new Member("member" + i, i % 100, team)));
+
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+
+        columnarBuffer = new ColumnarBuffer();
+        columnarBuffer.dictionaryColumn(member.username);
+        columnarBuffer.intColumn(member.age);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() {
+        return queryFactory
+                .select(Projections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() {
+        return queryFactory
+                .select(Projections.fields(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> directBean() {
+        return queryFactory
+                .select(DirectProjections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> directFields() {
+        return queryFactory
+                .select(DirectProjections.fields(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() {
+        return queryFactory
+                .select(Projections.constructor(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<Tuple> tuple() {
+        return queryFactory
+                .select(member.username, member.age)
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public ColumnarBuffer columnar() {
+        columnarBuffer.fetch(queryFactory.from(member));    // 같은 버퍼를 매번 재사용
+        return columnarBuffer;
+    }
+
+    @Benchmark
+    public List<Member> entity() {
+        em.clear();     // 매번 엔티티를 새로 하이드레이션 하도록 영속성 컨텍스트를 비움
+        return queryFactory
+                .selectFrom(member)
+                .fetch();
+    }
+}
@@ -0,0 +1,59 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JPAQueryFactory 로 만든 모든 쿼리에 기본으로 붙이는 힌트 (querydsl.query-hints.*)
+ * 쿼리에서 setHint 로 같은 힌트를 주면 그 값이 우선한다. update/delete/insert 절에는 타임아웃만 붙는다.
+ * PreparedQuery 는 모양 쿼리를 만들 때의 힌트를 그대로 쓴다.
+ *
+ * <pre>
+ * queryFactory.selectFrom(member)
+ *         .setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, 60_000)   // 이 쿼리만 60초
+ *         .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+ *         .fetch();
+ * </pre>
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "querydsl.query-hints")
+public class QueryHintsProperties {
+
+    /**
+     * 쿼리 타임아웃. JDBC 는 초 단위라 초 단위로 올림한다. null 이면 사용 안함
+     */
+    private Duration timeout;
+
+    /**
+     * JDBC fetch size. null 이면 드라이버 기본값
+     */
+    private Integer fetchSize;
+
+    /**
+     * true 면 조회한 엔티티를 읽기 전용으로 (스냅샷, 더티 체킹 없음). 수정할 엔티티는 setHint 로 false 를 줘야 한다.
+     * false 면 힌트를 주지 않는다. (readOnly 트랜잭션에서는 스프링이 세션 전체를 읽기 전용으로 둔다)
+     */
+    private boolean readOnly = false;
+
+    public Map<String, Object> toHints() {
+        Map<String, Object> hints = new LinkedHashMap<>();
+        if (timeout != null && !timeout.isZero()) {
+            // 하이버네이트가 밀리초를 초로 반올림하므로 미리 초 단위로 올려서 준다 (400ms 가 0초, 즉 타임아웃 없음이 되지 않게)
+            hints.put(SpecHints.HINT_SPEC_QUERY_TIMEOUT, (int) Math.ceil(timeout.toMillis() / 1000.0) * 1000);
+        }
+        if (fetchSize != null) {
+            hints.put(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        }
+        if (readOnly) {
+            hints.put(HibernateHints.HINT_READ_ONLY, true);
+        }
+        return hints;
+    }
+}
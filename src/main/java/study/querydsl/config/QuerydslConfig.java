@@ -0,0 +1,19 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.monitoring.QueryMetrics;
+import study.querydsl.repository.support.InstrumentedJPAQueryFactory;
+
+@Configuration
+@EnableConfigurationProperties(QueryHintsProperties.class)
+public class QuerydslConfig {
+
+    @Bean    // EntityManager는 트랜잭션 단위로 바인딩되는 프록시라 싱글톤으로 등록해도 동시성 문제 없음.
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics, QueryHintsProperties queryHints) {
+        return new InstrumentedJPAQueryFactory(em, queryMetrics, queryHints.toHints());
+    }
+}
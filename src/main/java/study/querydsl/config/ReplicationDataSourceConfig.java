@@ -0,0 +1,61 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * querydsl.datasource.replication.enabled=true 일 때 주 DB + 복제본 라우팅 데이터소스를 구성한다.
+ * 커넥션 풀별 지표는 hikaricp.connections.*{pool=primary|replica-N}, 라우팅 횟수는 datasource.routing{target=...}
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+@ConditionalOnProperty(prefix = "querydsl.datasource.replication", name = "enabled", havingValue = "true")
+public class ReplicationDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                 ReplicationProperties replicationProperties,
+                                 MeterRegistry registry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName(ReplicationRoutingDataSource.PRIMARY);
+        primary.setMetricRegistry(registry);
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        List<ReplicationProperties.Replica> replicaProperties = replicationProperties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            ReplicationProperties.Replica properties = replicaProperties.get(i);
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(properties.getUrl())
+                    .username(properties.getUsername())
+                    .password(properties.getPassword())
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(properties.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(registry);
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        ReplicationRoutingDataSource routing =
+                new ReplicationRoutingDataSource(primary, replicas, replicationProperties.getStrategy(), registry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
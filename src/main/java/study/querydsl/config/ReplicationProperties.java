@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 복제본 설정 (querydsl.datasource.replication.*)
+ * 주 데이터소스는 기존 spring.datasource.* 를 그대로 사용한다.
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "querydsl.datasource.replication")
+public class ReplicationProperties {
+
+    private boolean enabled = false;
+    private Strategy strategy = Strategy.ROUND_ROBIN;
+    private List<Replica> replicas = new ArrayList<>();
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
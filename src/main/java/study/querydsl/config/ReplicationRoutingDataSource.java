@@ -0,0 +1,80 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 복제본으로, 나머지(쓰기, 벌크 연산)는 주 DB로 보낸다.
+ * 트랜잭션이 시작된 뒤에 커넥션을 얻어야 readOnly 여부를 알 수 있으므로 LazyConnectionDataSourceProxy 로 감싸서 사용한다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final String[] replicaKeys;
+    private final HikariDataSource[] replicas;
+    private final ReplicationProperties.Strategy strategy;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> routed = new HashMap<>();
+
+    public ReplicationRoutingDataSource(HikariDataSource primary,
+                                        Map<String, HikariDataSource> replicas,
+                                        ReplicationProperties.Strategy strategy,
+                                        MeterRegistry registry) {
+        this.replicaKeys = replicas.keySet().toArray(String[]::new);
+        this.replicas = replicas.values().toArray(HikariDataSource[]::new);
+        this.strategy = strategy;
+
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.putAll(replicas);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        for (Object key : targets.keySet()) {
+            routed.put((String) key, Counter.builder("datasource.routing")
+                    .description("대상 데이터소스별 커넥션 요청 수")
+                    .tag("target", (String) key)
+                    .register(registry));
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicas.length > 0
+                ? replicaKeys[selectReplica()]
+                : PRIMARY;
+        routed.get(key).increment();
+        return key;
+    }
+
+    private int selectReplica() {
+        if (strategy == ReplicationProperties.Strategy.LEAST_CONNECTIONS) {
+            int least = 0;
+            int leastActive = Integer.MAX_VALUE;
+            for (int i = 0; i < replicas.length; i++) {
+                int active = activeConnections(replicas[i]);
+                if (active < leastActive) {
+                    least = i;
+                    leastActive = active;
+                }
+            }
+            return least;
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.length);
+    }
+
+    private static int activeConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool != null ? pool.getActiveConnections() : 0;    // 아직 커넥션을 한 번도 안 쓴 풀
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * 하이버네이트 2차 캐시 (JCache + Caffeine, 프로세스 내 캐시)
+ * 리전별 크기/TTL은 querydsl.cache.regions 로 설정하고, 쿼리 캐시는 querydsl.cache.query-cache 로 켠다.
+ */
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+        // 애플리케이션 컨텍스트마다 별도의 CacheManager 를 쓰도록 URI를 따로 준다. (테스트에서 컨텍스트가 여러 개 뜨는 경우)
+        CacheManager cacheManager = Caching
+                .getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("querydsl-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        properties.getRegions().forEach((name, region) -> {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>()
+                    .setMaximumSize(OptionalLong.of(region.getMaxSize()))
+                    .setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()))
+                    .setStatisticsEnabled(true);    // 히트/미스/축출 카운터 (JMX)
+            cacheManager.createCache(name, configuration);
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                    SecondLevelCacheProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, properties.isQueryCache());
+        };
+    }
+}
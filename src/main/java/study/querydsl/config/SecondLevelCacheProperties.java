@@ -0,0 +1,27 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 2차 캐시 설정 (querydsl.cache.*)
+ * regions 의 키는 엔티티의 @Cache(region = ...) 이름이다.
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "querydsl.cache")
+public class SecondLevelCacheProperties {
+
+    private boolean queryCache = false;
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter @Setter
+    public static class Region {
+        private long maxSize = 1000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
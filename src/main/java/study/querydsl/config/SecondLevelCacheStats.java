@@ -0,0 +1,63 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 2차 캐시 리전별 히트/미스/축출 카운터.
+ * JCache 표준 통계 MXBean(javax.cache:type=CacheStatistics)을 읽는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheStats {
+
+    private final CacheManager hibernateCacheManager;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    public Map<String, RegionStats> regions() {
+        Map<String, RegionStats> result = new LinkedHashMap<>();
+        for (String cacheName : hibernateCacheManager.getCacheNames()) {
+            RegionStats stats = region(cacheName);
+            if (stats != null) {
+                result.put(cacheName, stats);
+            }
+        }
+        return result;
+    }
+
+    public RegionStats region(String cacheName) {
+        try {
+            ObjectName name = statisticsName(cacheName);
+            if (!mBeanServer.isRegistered(name)) {
+                return null;    // 통계를 켜지 않은 리전
+            }
+            return new RegionStats(
+                    (Long) mBeanServer.getAttribute(name, "CacheHits"),
+                    (Long) mBeanServer.getAttribute(name, "CacheMisses"),
+                    (Long) mBeanServer.getAttribute(name, "CacheEvictions"));
+        } catch (JMException e) {
+            throw new IllegalStateException("캐시 통계를 읽을 수 없습니다: " + cacheName, e);
+        }
+    }
+
+    private ObjectName statisticsName(String cacheName) throws JMException {
+        return new ObjectName("javax.cache:type=CacheStatistics"
+                + ",CacheManager=" + sanitize(hibernateCacheManager.getURI().toString())
+                + ",Cache=" + sanitize(cacheName));
+    }
+
+    private static String sanitize(String value) {
+        return value == null ? "" : value.replaceAll("[,:=\n]", ".");
+    }
+
+    public record RegionStats(long hits, long misses, long evictions) {
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import study.querydsl.monitoring.QueryMetrics;
+import study.querydsl.monitoring.StatementCountInspector;
+import study.querydsl.monitoring.TransactionStatementCounter;
+import study.querydsl.repository.support.QueryResultCache;
+import study.querydsl.repository.support.QueryResultCacheInvalidator;
+
+@Configuration
+public class StatementInspectorConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(QueryMetrics queryMetrics,
+                                                                     @Lazy QueryResultCache queryResultCache,
+                                                                     @Value("${querydsl.statement-count.threshold:20}") int threshold) {
+        // QueryResultCache 는 EntityManager 를 쓰므로 EntityManagerFactory 를 만든 뒤에 꺼낸다 (순환 참조 방지)
+        StatementInspector counter = new StatementCountInspector(queryMetrics, new TransactionStatementCounter(threshold));
+        StatementInspector invalidator = new QueryResultCacheInvalidator(queryResultCache);
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                (StatementInspector) sql -> invalidator.inspect(counter.inspect(sql)));
+    }
+}
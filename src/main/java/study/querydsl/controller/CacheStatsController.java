@@ -0,0 +1,22 @@
+package study.querydsl.controller;
+
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.config.SecondLevelCacheStats;
+import study.querydsl.config.SecondLevelCacheStats.RegionStats;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final SecondLevelCacheStats secondLevelCacheStats;
+
+    @GetMapping("/cache/stats")
+    public Map<String, RegionStats> stats() {
+        return secondLevelCacheStats.regions();
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.controller;
+
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.service.MemberExportService;
+
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private final MemberExportService memberExportService;
+
+    // 응답을 메모리에 모으지 않고 출력 스트림에 바로 쓴다.
+    @GetMapping("/members/export")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportNdjson(response.getOutputStream());
+    }
+}
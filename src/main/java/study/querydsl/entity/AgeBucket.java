@@ -0,0 +1,36 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 회원 나이 구간. member.age_bucket 컬럼에 이름으로 저장된다.
+ *
+ * 컬럼은 DB가 age 로부터 계산하는 생성 컬럼(SQL)이라 엔티티 저장뿐 아니라 벌크 update(CounterUpdater 등)에도 항상 맞춰진다.
+ * 엔티티에 올라온 값은 of() 로 자바에서 같은 규칙으로 계산한다. 구간을 바꾸면 of() 와 SQL 을 같이 바꿔야 한다.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AgeBucket {
+
+    AGE_0_20("0~20살"),
+    AGE_21_30("21살~30살"),
+    OTHER("기타");
+
+    static final String SQL = "varchar(16) generated always as (case"
+            + " when age between 0 and 20 then 'AGE_0_20'"
+            + " when age between 21 and 30 then 'AGE_21_30'"
+            + " else 'OTHER' end)";
+
+    private final String label;
+
+    public static AgeBucket of(int age) {
+        if (age >= 0 && age <= 20) {
+            return AGE_0_20;
+        }
+        if (age >= 21 && age <= 30) {
+            return AGE_21_30;
+        }
+        return OTHER;
+    }
+}
@@ -4,18 +4,53 @@ package study.querydsl.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.HashSet;
+import java.util.Set;
+
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_username_normalized", columnList = "username_normalized"),  // 대소문자 무시 같음/접두사 검색
+        @Index(name = "idx_member_age_id", columnList = "age, member_id"),     // 나이 조건 + 커서 페이징 정렬(age, id)
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),     // 팀별 조회, 팀 + 나이 조건
+        @Index(name = "idx_member_age_bucket", columnList = "age_bucket")       // 나이 구간 조건, 구간별 group by
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 50)  // pooled 옵티마이저: 시퀀스 한 번에 50개씩 확보
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    /**
+     * age 로 정해지는 나이 구간. DB가 계산하는 생성 컬럼이라 insert/update 에 넣지 않는다. (AgeBucket)
+     */
+    @Setter(AccessLevel.NONE)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "age_bucket", insertable = false, updatable = false, columnDefinition = AgeBucket.SQL)
+    private AgeBucket ageBucket;
+
+    /**
+     * 검색용으로 정규화한 이름과 그 3글자 조각. username 을 바꿀 때 같이 바뀐다. (UsernameSearch)
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "username_normalized")
+    private String usernameNormalized;
+
+    @Setter(AccessLevel.NONE)
+    @ElementCollection
+    @CollectionTable(name = "member_username_gram",
+            joinColumns = @JoinColumn(name = "member_id"),
+            indexes = @Index(name = "idx_member_username_gram", columnList = "gram, member_id"))
+    @Column(name = "gram", length = UsernameSearch.GRAM_SIZE * 2)
+    private Set<String> usernameGrams = new HashSet<>();
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -29,14 +64,32 @@ public class Member {
     }
 
     public Member(String username, int age, Team team) {
-        this.username = username;
-        this.age = age;
+        setUsername(username);
+        setAge(age);
         if (team != null) {
             changeTeam(team);
         }
     }
 
-    private void changeTeam(Team team) {
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameNormalized = UsernameSearch.normalize(username);
+        Set<String> grams = UsernameSearch.grams(usernameNormalized);
+        if (!usernameGrams.equals(grams)) {
+            usernameGrams.retainAll(grams);     // 컬렉션을 바꿔치지 않고 고쳐서 달라진 조각만 insert/delete 되게
+            usernameGrams.addAll(grams);
+        }
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+        this.ageBucket = AgeBucket.of(age);     // DB가 계산할 값과 같게 맞춰서 다시 읽지 않아도 되게
+    }
+
+    public void changeTeam(Team team) {
+        if (this.team != null) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
         team.getMembers().add(this);
     }
@@ -3,17 +3,24 @@ package study.querydsl.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")    // 거의 안바뀌고 member.team 으로 계속 조회되므로 2차 캐시
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)  // JPA는 기본생성자가 있어야하고 PROTECTED까지는 허용을 한다.
 @ToString(of = {"id", "name"})
 public class Team {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq")
+    @SequenceGenerator(name = "team_seq", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
     private String name;
@@ -0,0 +1,41 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 팀별 회원 나이 통계 (비정규화).
+ * 회원이 추가/수정/삭제될 때 TeamStatsListener 가 증분으로 갱신하고, TeamStatsReconciler 가 주기적으로 다시 맞춘다.
+ * 팀 삭제나 벌크 연산과 엮이지 않도록 team 테이블과 FK는 두지 않는다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin;
+    private Integer ageMax;
+
+    public TeamStats(Long teamId, long memberCount, long ageSum, Integer ageMin, Integer ageMax) {
+        this.teamId = teamId;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+
+    public Double getAgeAvg() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.entity;
+
+import com.querydsl.core.annotations.QueryDelegate;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.JPAExpressions;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 인덱스를 타는 회원 이름 검색. QMember 에 메서드로 생성된다. (@QueryDelegate)
+ *
+ * <pre>
+ * queryFactory.selectFrom(member).where(member.usernameStartsWith("mem"))
+ * queryFactory.selectFrom(member).where(member.usernameContains("ber1"))
+ * </pre>
+ *
+ * lower(username) like '%x%' 는 행마다 함수를 계산하고 앞이 와일드카드라 인덱스를 쓸 수 없다.
+ * 대신 쓰기 시점에 정규화한 이름(username_normalized, 인덱스)과 3글자 조각(member_username_gram, 인덱스)을 저장해 둔다.
+ *
+ * - 같음/접두사: 정규화 컬럼의 인덱스 범위 검색
+ * - 중간 포함: 검색어의 3글자 조각을 모두 가진 회원만 조각 인덱스로 고르고, 그 후보만 정규화 컬럼으로 다시 확인한다.
+ *   검색어가 3글자보다 짧으면 조각을 쓸 수 없어서 정규화 컬럼 like 로 전체를 본다.
+ *
+ * 비교는 NFKC 정규화 + 소문자 기준이다. 검색어가 비어 있으면 null(조건 없음)을 돌려준다.
+ * 벌크 update 로 username 을 바꾸면 정규화 컬럼과 조각이 갱신되지 않으므로 엔티티로 바꿔야 한다.
+ * (NFKC 정규화와 조각은 DB 생성 컬럼으로 만들 수 없다. BulkClauseExecutor, ChunkedBulkExecutor 는 isUsername 으로 거부한다)
+ */
+public final class UsernameSearch {
+
+    public static final int GRAM_SIZE = 3;
+
+    private UsernameSearch() {
+    }
+
+    /**
+     * 회원 username 컬럼 경로인지 (별칭과 상관없이)
+     */
+    public static boolean isUsername(Path<?> path) {
+        Path<?> parent = path.getMetadata().getParent();
+        return parent != null && parent.getType() == Member.class
+                && path.getMetadata().getName().equals(QMember.member.username.getMetadata().getName());
+    }
+
+    @QueryDelegate(Member.class)
+    public static BooleanExpression usernameEqualsIgnoreCase(QMember member, String username) {
+        String normalized = normalize(username);
+        return normalized != null ? member.usernameNormalized.eq(normalized) : null;
+    }
+
+    @QueryDelegate(Member.class)
+    public static BooleanExpression usernameStartsWith(QMember member, String prefix) {
+        String normalized = normalize(prefix);
+        return normalized != null ? member.usernameNormalized.startsWith(normalized) : null;
+    }
+
+    @QueryDelegate(Member.class)
+    public static BooleanExpression usernameContains(QMember member, String term) {
+        String normalized = normalize(term);
+        if (normalized == null) {
+            return null;
+        }
+        Set<String> grams = grams(normalized);
+        if (grams.isEmpty()) {
+            return member.usernameNormalized.contains(normalized);
+        }
+
+        QMember candidate = new QMember("gramCandidate");
+        StringPath gram = Expressions.stringPath("gram");
+        return member.id.in(JPAExpressions
+                        .select(candidate.id)
+                        .from(candidate)
+                        .join(candidate.usernameGrams, gram)
+                        .where(gram.in(grams))
+                        .groupBy(candidate.id)
+                        .having(gram.count().eq((long) grams.size())))
+                .and(member.usernameNormalized.contains(normalized));   // 조각 순서/간격까지 맞는지 후보만 확인
+    }
+
+    /**
+     * 비교용 정규화. 전각/반각 등 호환 문자를 통일하고(NFKC) 소문자로 바꾼다. 비어 있으면 null
+     */
+    public static String normalize(String username) {
+        if (username == null || username.isBlank()) {
+            return null;
+        }
+        return Normalizer.normalize(username.strip(), Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 정규화한 이름의 3글자 조각들 (중복 제거)
+     */
+    public static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (normalized == null) {
+            return grams;
+        }
+        for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿼리 측정 (p6spy 대신 운영에서 켜두는 용도)
+ *
+ * querydsl.query       - JPQL 모양별 실행 시간 (히스토그램), outcome=success/error/timeout
+ * querydsl.query.rows  - JPQL 모양별 반환 행 수
+ * hibernate.statements - SQL 모양별 실행 횟수
+ *
+ * Querydsl 은 값을 항상 파라미터로 바인딩하므로 JPQL 문자열 자체가 쿼리 모양이다.
+ * SQL 은 in 목록 파라미터 수에 따라 문자열이 달라지므로 SqlShapes 로 정규화한 모양별로 센다.
+ * 미터는 모양별로 한 번만 만들어 캐시하고, 모양이 maxShapes 를 넘으면 "other" 로 모은다.
+ * 같은 SQL 문자열을 매번 정규화하지 않도록 SQL 문자열 -&gt; 카운터도 따로 캐시한다. (모양 수 제한과는 별개, maxShapes * 10 개까지)
+ * 느린 쿼리는 실행된 SQL과 함께 경고 로그를 남긴다.
+ */
+@Slf4j
+@Component
+public class QueryMetrics {
+
+    static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final Duration slowQueryThreshold;
+    private final int maxShapes;
+
+    private final Map<String, QueryMeters> queryMeters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> statementCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> statementCountersBySql = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry,
+                        @Value("${querydsl.metrics.slow-query-threshold:300ms}") Duration slowQueryThreshold,
+                        @Value("${querydsl.metrics.max-shapes:500}") int maxShapes) {
+        this.registry = registry;
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.maxShapes = maxShapes;
+    }
+
+    public void recordQuery(String jpql, String outcome, long elapsedNanos, int rows, StatementCounter.Scope statements) {
+        QueryMeters meters = queryMeters(jpql);
+        meters.timer(outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meters.rows.record(rows);
+
+        if (elapsedNanos >= slowQueryThreshold.toNanos()) {
+            log.warn("[slow query] {}ms rows={} jpql={} sql={}",
+                    elapsedNanos / 1_000_000, rows, jpql, statements.getShapes().keySet());
+        }
+    }
+
+    void recordStatement(String sql) {
+        Counter counter = statementCountersBySql.get(sql);
+        if (counter == null) {
+            counter = statementCounterForShape(SqlShapes.normalize(sql));
+            if (statementCountersBySql.size() < maxShapes * 10) {
+                statementCountersBySql.put(sql, counter);
+            }
+        }
+        counter.increment();
+    }
+
+    private Counter statementCounterForShape(String shape) {
+        Counter counter = statementCounters.get(shape);
+        if (counter != null) {
+            return counter;
+        }
+        return statementCounters.size() < maxShapes
+                ? statementCounters.computeIfAbsent(shape, this::statementCounter)
+                : statementCounter(OTHER);
+    }
+
+    private Counter statementCounter(String shape) {
+        return Counter.builder("hibernate.statements")
+                .description("SQL 모양별 실행 횟수")
+                .tag("sql", shape)
+                .register(registry);
+    }
+
+    private QueryMeters queryMeters(String jpql) {
+        QueryMeters meters = queryMeters.get(jpql);
+        if (meters != null) {
+            return meters;
+        }
+        String shape = queryMeters.size() < maxShapes ? jpql : OTHER;
+        return queryMeters.computeIfAbsent(shape, QueryMeters::new);
+    }
+
+    private class QueryMeters {
+
+        private final String shape;
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+        private final DistributionSummary rows;
+
+        QueryMeters(String shape) {
+            this.shape = shape;
+            this.rows = DistributionSummary.builder("querydsl.query.rows")
+                    .description("쿼리 모양별 반환 행 수")
+                    .tag("query", shape)
+                    .register(registry);
+        }
+
+        Timer timer(String outcome) {
+            return timers.computeIfAbsent(outcome, o -> Timer.builder("querydsl.query")
+                    .description("쿼리 모양별 실행 시간")
+                    .tag("query", shape)
+                    .tag("outcome", o)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry));
+        }
+    }
+}
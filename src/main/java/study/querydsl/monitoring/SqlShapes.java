@@ -0,0 +1,25 @@
+package study.querydsl.monitoring;
+
+import java.util.regex.Pattern;
+
+/**
+ * 같은 모양의 SQL을 하나로 묶기 위한 정규화.
+ * 리터럴은 ? 로, in (?, ?, ...) 목록은 in (...) 으로 바꾸고 공백을 정리한다.
+ */
+public final class SqlShapes {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlShapes() {
+    }
+
+    public static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 요청 하나에서 실행된 SQL 수가 임계치를 넘으면 반복된 SQL 모양을 경고 로그로 남긴다. (N+1 탐지)
+ */
+@Slf4j
+@Component
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    private final int threshold;
+
+    public StatementCountFilter(@Value("${querydsl.statement-count.threshold:20}") int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            filterChain.doFilter(request, response);
+
+            if (scope.getCount() > threshold) {
+                log.warn("[N+1 의심] {} {} - SQL {}건 실행 (임계치 {}), 반복된 쿼리={}",
+                        request.getMethod(), request.getRequestURI(), scope.getCount(), threshold,
+                        scope.getRepeatedShapes());
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 하이버네이트가 실행하는 SQL을 StatementCounter, TransactionStatementCounter, QueryMetrics 에 기록한다. SQL은 바꾸지 않는다.
+ */
+@RequiredArgsConstructor
+public class StatementCountInspector implements StatementInspector {
+
+    private final QueryMetrics queryMetrics;
+    private final TransactionStatementCounter transactionStatementCounter;
+
+    @Override
+    public String inspect(String sql) {
+        StatementCounter.record(sql);
+        transactionStatementCounter.record(sql);
+        queryMetrics.recordStatement(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.monitoring;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 현재 스레드(요청, 테스트, 쿼리 한 번)에서 실행된 SQL 수를 센다. 트랜잭션 단위는 TransactionStatementCounter 가 센다.
+ * StatementCountInspector 가 하이버네이트가 준비하는 모든 SQL을 여기에 기록한다.
+ *
+ * <pre>
+ * try (StatementCounter.Scope scope = StatementCounter.start()) {
+ *     ...
+ *     scope.getCount();
+ * }
+ * </pre>
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 스레드에 걸지 않은 Scope. 직접 record 한 것만 센다. (TransactionStatementCounter)
+     */
+    static Scope detached() {
+        return new Scope(null);
+    }
+
+    static void record(String sql) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.record(sql);
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+        private int count;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        // 실행 중에는 원본 SQL만 모아두고, 정규화는 결과를 볼 때 한다. (항상 켜두는 측정이라 비용을 줄임)
+        void record(String sql) {
+            count++;
+            statements.merge(sql, 1, Integer::sum);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 실행된 원본 SQL (중복 제거, 처음 실행된 순서)
+         */
+        public Set<String> getStatements() {
+            return Collections.unmodifiableSet(statements.keySet());
+        }
+
+        /**
+         * SQL 모양별 실행 횟수 (처음 실행된 순서)
+         */
+        public Map<String, Integer> getShapes() {
+            Map<String, Integer> shapes = new LinkedHashMap<>();
+            statements.forEach((sql, times) -> shapes.merge(SqlShapes.normalize(sql), times, Integer::sum));
+            return Collections.unmodifiableMap(shapes);
+        }
+
+        /**
+         * 두 번 이상 실행된 모양만. N+1 의심 대상이다.
+         */
+        public Map<String, Integer> getRepeatedShapes() {
+            return getShapes().entrySet().stream()
+                    .filter(e -> e.getValue() > 1)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션 하나에서 실행된 SQL 수가 임계치를 넘으면 커밋/롤백 후 반복된 SQL 모양을 경고 로그로 남긴다. (N+1 탐지)
+ * 요청 단위(StatementCountFilter)와 달리 스케줄러, 배치처럼 요청 밖에서 도는 트랜잭션도 잡는다.
+ *
+ * 트랜잭션의 첫 SQL 에서 세기 시작하고 트랜잭션 동기화(afterCompletion)로 끝낸다.
+ * REQUIRES_NEW 로 바깥 트랜잭션이 보류되면 안쪽 트랜잭션은 따로 센다.
+ * 스레드의 StatementCounter.Scope 와는 따로 센다. (트랜잭션 경계와 Scope 의 열고 닫는 순서가 맞지 않을 수 있다)
+ */
+@Slf4j
+public class TransactionStatementCounter {
+
+    private final int threshold;
+
+    public TransactionStatementCounter(int threshold) {
+        this.threshold = threshold;
+    }
+
+    void record(String sql) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        StatementCounter.Scope scope = (StatementCounter.Scope) TransactionSynchronizationManager.getResource(this);
+        if (scope == null) {
+            scope = StatementCounter.detached();
+            TransactionSynchronizationManager.bindResource(this, scope);
+            TransactionSynchronizationManager.registerSynchronization(
+                    new Counting(scope, TransactionSynchronizationManager.getCurrentTransactionName()));
+        }
+        scope.record(sql);
+    }
+
+    private class Counting implements TransactionSynchronization {
+
+        private final StatementCounter.Scope scope;
+        private final String transactionName;
+
+        Counting(StatementCounter.Scope scope, String transactionName) {
+            this.scope = scope;
+            this.transactionName = transactionName;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(TransactionStatementCounter.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(TransactionStatementCounter.this, scope);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionStatementCounter.this);
+            if (scope.getCount() > threshold) {
+                log.warn("[N+1 의심] 트랜잭션 {} - SQL {}건 실행 (임계치 {}), 반복된 쿼리={}",
+                        transactionName, scope.getCount(), threshold, scope.getRepeatedShapes());
+            }
+        }
+    }
+}
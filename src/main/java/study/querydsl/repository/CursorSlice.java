@@ -0,0 +1,21 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 키셋 페이징 결과. 다음 페이지가 없으면 nextCursor는 null이다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CursorSlice<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
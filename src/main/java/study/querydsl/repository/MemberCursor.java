@@ -0,0 +1,62 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 키셋(seek) 페이징 커서.
+ * 정렬 기준은 (age asc, id asc) 고정이고, 마지막으로 읽은 행의 (age, id)를 기억해두었다가
+ * 다음 페이지는 where (age, id) > (?, ?) 로 바로 찾아간다. offset처럼 앞 행을 버리지 않으므로
+ * 몇 번째 페이지든 비용이 같다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+    static final OrderSpecifier<?>[] ORDER = {member.age.asc(), member.id.asc()};
+
+    private static final String SEPARATOR = ":";
+
+    private final int age;
+    private final Long id;
+
+    public static MemberCursor of(int age, Long id) {
+        return new MemberCursor(age, id);
+    }
+
+    /**
+     * 클라이언트에는 내부 값이 드러나지 않도록 불투명한 토큰으로 내려준다.
+     */
+    public String encode() {
+        String raw = age + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            return new MemberCursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다: " + token, e);
+        }
+    }
+
+    /**
+     * (age, id) > (?, ?) 를 JPQL에서 쓸 수 있는 형태로 풀어쓴 조건.
+     * 앞의 age >= ? 는 인덱스 범위 탐색을 타게 하기 위한 조건이다.
+     */
+    BooleanExpression after() {
+        return member.age.goe(age)
+                .and(member.age.gt(age).or(member.id.gt(id)));
+    }
+}
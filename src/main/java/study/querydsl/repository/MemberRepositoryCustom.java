@@ -0,0 +1,19 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+public interface MemberRepositoryCustom {
+
+    /**
+     * 키셋 페이징. cursor가 null이면 첫 페이지부터 조회한다.
+     */
+    CursorSlice<MemberTeamDto> searchByCursor(MemberSearchCondition condition, String cursor, int size);
+
+    /**
+     * 오프셋 페이징. 카운트 쿼리는 필요할 때만 조인 없이 따로 실행한다.
+     */
+    Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable);
+}
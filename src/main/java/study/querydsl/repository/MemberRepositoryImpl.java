@@ -0,0 +1,165 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.QueryResultCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Transactional(readOnly = true)    // 쓰기 트랜잭션 밖에서 호출되면 복제본에서 조회
+@RequiredArgsConstructor
+public class MemberRepositoryImpl implements MemberRepositoryCustom {
+
+    /**
+     * searchPage 에서 정렬할 수 있는 속성 (MemberTeamDto 필드 이름)
+     */
+    private static final Map<String, ComparableExpressionBase<?>> SORTABLE = Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamId", team.id,
+            "teamName", team.name);
+
+    private final JPAQueryFactory queryFactory;
+    private final QueryResultCache queryResultCache;
+
+    @Override
+    public CursorSlice<MemberTeamDto> searchByCursor(MemberSearchCondition condition, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("페이지 크기는 1 이상이어야 합니다: " + size);
+        }
+        List<MemberTeamDto> content = queryResultCache.fetch(joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member), condition.getTeamName())
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        afterCursor(cursor))
+                .orderBy(MemberCursor.ORDER)
+                .limit(size + 1));  // 한 건 더 읽어서 다음 페이지 존재 여부 확인
+
+        if (content.size() <= size) {
+            return new CursorSlice<>(content, null);
+        }
+
+        content = content.subList(0, size);
+        MemberTeamDto last = content.get(size - 1);
+        return new CursorSlice<>(content, MemberCursor.of(last.getAge(), last.getMemberId()).encode());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = queryResultCache.fetch(joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member), condition.getTeamName())
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(orderBy(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()));
+
+        // 첫 페이지가 페이지 크기보다 작거나 마지막 페이지면 카운트 쿼리를 생략한다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> countTotal(condition));
+    }
+
+    /**
+     * Pageable 의 정렬 + id 순. 정렬 값이 같은 행끼리 순서가 정해지지 않으면 페이지마다 달라져서 행이 겹치거나 빠진다.
+     */
+    private static OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = SORTABLE.get(order.getProperty());
+            if (path == null) {
+                throw new IllegalArgumentException("정렬할 수 없는 속성입니다: " + order.getProperty());
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+            if (path == member.id) {
+                return orders.toArray(OrderSpecifier[]::new);  // id 는 유일하므로 뒤의 정렬은 의미 없음
+            }
+        }
+        orders.add(member.id.asc());
+        return orders.toArray(OrderSpecifier[]::new);
+    }
+
+    private long countTotal(MemberSearchCondition condition) {
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member);
+
+        // left join이라 팀 조건이 없으면 조인해도 건수가 같다. 필요할 때만 조인한다.
+        if (hasText(condition.getTeamName())) {
+            countQuery.join(member.team, team);
+        }
+
+        countQuery.where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
+
+        // 목록과 같은 캐시를 써야 쓰기 후 목록과 전체 건수가 같이 무효화된다
+        List<Long> count = queryResultCache.fetch(countQuery);
+        return count.isEmpty() || count.get(0) == null ? 0L : count.get(0);
+    }
+
+    /**
+     * 팀 이름 조건이 있으면 어차피 팀이 있는 회원만 남으므로 inner join 한다.
+     * left join 이면 DB가 member 부터 읽어야 해서 팀 이름 인덱스를 타지 못하고 member 를 풀 스캔한다.
+     */
+    private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, String teamName) {
+        return hasText(teamName) ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression afterCursor(String cursor) {
+        return cursor != null ? MemberCursor.decode(cursor).after() : null;
+    }
+}
@@ -0,0 +1,13 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.TeamMembersDto;
+
+public interface TeamRepositoryCustom {
+
+    /**
+     * 팀 페이지와 소속 회원. 페이지 크기와 상관없이 팀 조회 1번 + 회원 조회 1번 (+ 필요하면 카운트 1번)
+     */
+    Page<TeamMembersDto> searchTeamsWithMembers(Pageable pageable);
+}
@@ -0,0 +1,63 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.TeamMembersDto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Transactional(readOnly = true)    // 쓰기 트랜잭션 밖에서 호출되면 복제본에서 조회
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    @Override
+    public Page<TeamMembersDto> searchTeamsWithMembers(Pageable pageable) {
+        // 1. 팀만 페이징 (컬렉션 페치조인을 하면 페이징이 메모리에서 일어나고 row가 회원 수만큼 늘어난다)
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Map<Long, TeamMembersDto> content = new LinkedHashMap<>();
+        for (Tuple tuple : teams) {
+            Long teamId = tuple.get(team.id);
+            content.put(teamId, new TeamMembersDto(teamId, tuple.get(team.name)));
+        }
+
+        // 2. 페이지에 속한 팀들의 회원을 in 쿼리 한 번으로 가져와서 메모리에서 팀별로 묶는다.
+        if (!content.isEmpty()) {
+            List<Tuple> members = queryFactory
+                    .select(member.team.id, member.username, member.age)
+                    .from(member)
+                    .where(member.team.id.in(content.keySet()))
+                    .orderBy(member.id.asc())
+                    .fetch();
+
+            for (Tuple tuple : members) {
+                content.get(tuple.get(member.team.id)).getMembers()
+                        .add(new MemberDto(tuple.get(member.username), tuple.get(member.age)));
+            }
+        }
+
+        return PageableExecutionUtils.getPage(List.copyOf(content.values()), pageable, () -> queryFactory
+                .select(team.count())
+                .from(team)
+                .fetchOne());
+    }
+}
@@ -0,0 +1,7 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.querydsl.entity.TeamStats;
+
+public interface TeamStatsRepository extends JpaRepository<TeamStats, Long> {
+}
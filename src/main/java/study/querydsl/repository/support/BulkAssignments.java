@@ -0,0 +1,90 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.LockModeType;
+import study.querydsl.entity.UsernameSearch;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 벌크 update 의 set 절을 검사하면서 실제 update 절에 그대로 옮긴다. (BulkClauseExecutor, ChunkedBulkExecutor)
+ *
+ * 엔티티 setter 가 파생 컬럼까지 같이 바꾸는 속성(member.username -&gt; username_normalized, member_username_gram)은
+ * 벌크 update 로 바꾸면 파생 값이 어긋나므로 IllegalArgumentException 으로 거부한다. 엔티티 setter 로 바꿔야 한다.
+ */
+final class BulkAssignments {
+
+    private BulkAssignments() {
+    }
+
+    static void apply(EntityPath<?> entity, Consumer<JPAUpdateClause> assignments, JPAUpdateClause target) {
+        assignments.accept(new JPAUpdateClause(null, entity, JPQLTemplates.DEFAULT) {
+
+            @Override
+            public <T> JPAUpdateClause set(Path<T> path, T value) {
+                target.set(checked(path), value);
+                return this;
+            }
+
+            @Override
+            public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+                target.set(checked(path), expression);
+                return this;
+            }
+
+            @Override
+            public <T> JPAUpdateClause setNull(Path<T> path) {
+                target.setNull(checked(path));
+                return this;
+            }
+
+            @Override
+            public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+                paths.forEach(BulkAssignments::checked);
+                target.set(paths, values);
+                return this;
+            }
+
+            @Override
+            public JPAUpdateClause where(Predicate... where) {
+                target.where(where);
+                return this;
+            }
+
+            @Override
+            public JPAUpdateClause setLockMode(LockModeType lockMode) {
+                target.setLockMode(lockMode);
+                return this;
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return target.isEmpty();
+            }
+
+            @Override
+            public long execute() {
+                throw new UnsupportedOperationException("set 절만 지정하세요. 실행은 벌크 실행기가 합니다");
+            }
+
+            @Override
+            public String toString() {
+                return target.toString();
+            }
+        });
+    }
+
+    private static <P extends Path<?>> P checked(P path) {
+        if (UsernameSearch.isUsername(path)) {
+            throw new IllegalArgumentException(path + " 는 벌크 update 로 바꿀 수 없습니다."
+                    + " 정규화 컬럼과 검색 조각이 같이 바뀌어야 하므로 엔티티 setter 로 바꾸세요.");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,139 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 영속성 컨텍스트와 어긋나지 않는 벌크 update/delete.
+ *
+ * 벌크 연산은 영속성 컨텍스트를 무시하고 DB에 바로 쿼리를 날리기 때문에 보통 em.flush(), em.clear() 를 하는데,
+ * clear 는 긴 트랜잭션에서 잘 데워진 1차 캐시까지 모두 버린다.
+ * 여기서는 실행 전에 flush 하고, 영향받는 엔티티 중 영속성 컨텍스트에 올라와 있는 것만 골라서 detach 한다.
+ * 이미 로딩된 컬렉션(team.members 등)에 그 엔티티가 들어 있으면 컬렉션 주인을 refresh 해서,
+ * 지워진 엔티티나 detach 된 옛 인스턴스가 컬렉션에 남지 않고 다음 접근 때 DB에서 다시 읽게 한다.
+ * 2차 캐시 리전과 쿼리 캐시는 하이버네이트가 벌크 연산 후 자동으로 무효화한다.
+ * 파생 컬럼이 있는 member.username 은 벌크로 바꿀 수 없다. (BulkAssignments)
+ *
+ * <pre>
+ * bulkClauseExecutor.update(member, update -&gt; update.set(member.age, member.age.add(1)), member.age.lt(28));
+ * bulkClauseExecutor.delete(member, member.age.gt(18));
+ * </pre>
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkClauseExecutor {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public long update(EntityPath<?> entity, Consumer<JPAUpdateClause> assignments, Predicate... where) {
+        JPAUpdateClause update = queryFactory.update(entity).where(where);
+        BulkAssignments.apply(entity, assignments, update);
+
+        em.flush();
+        List<Object> affected = findManagedMatches(entity, where);
+        long count = update.execute();
+
+        detach(affected);
+        return count;
+    }
+
+    public long delete(EntityPath<?> entity, Predicate... where) {
+        em.flush();
+        List<Object> affected = findManagedMatches(entity, where);
+
+        long count = queryFactory.delete(entity).where(where).execute();
+
+        detach(affected);
+        return count;
+    }
+
+    private void detach(List<Object> affected) {
+        if (affected.isEmpty()) {
+            return;
+        }
+        List<Object> owners = findOwnersOfLoadedCollections(affected);
+        affected.forEach(em::detach);
+        for (Object owner : owners) {
+            if (em.contains(owner)) {     // 주인도 영향받아 detach 됐으면 refresh 할 필요 없음
+                em.refresh(owner);        // 실행 전에 flush 했으므로 refresh 로 잃는 변경은 없음
+            }
+        }
+    }
+
+    /**
+     * 초기화된 컬렉션 중 영향받은 엔티티를 담고 있는 것의 주인.
+     */
+    private List<Object> findOwnersOfLoadedCollections(List<Object> affected) {
+        Set<Object> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        targets.addAll(affected);
+        Set<Object> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        session.getPersistenceContextInternal().forEachCollectionEntry((collection, entry) -> {
+            if (!collection.wasInitialized() || collection.getOwner() == null || owners.contains(collection.getOwner())) {
+                return;
+            }
+            Collection<?> elements = collection instanceof Map<?, ?> map ? map.values() : (Collection<?>) collection;
+            for (Object element : elements) {
+                if (targets.contains(element)) {
+                    owners.add(collection.getOwner());
+                    return;
+                }
+            }
+        }, false);
+        return new ArrayList<>(owners);
+    }
+
+    /**
+     * 영속성 컨텍스트에 있는 엔티티 중 조건에 맞는 것. 조건은 update 로 값이 바뀌기 전에 확인해야 한다.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private List<Object> findManagedMatches(EntityPath<?> entity, Predicate... where) {
+        Map<Comparable, Object> managed = new HashMap<>();
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entity.getType().isAssignableFrom(entry.getValue().getPersister().getMappedClass())) {
+                managed.put((Comparable) entry.getValue().getId(), entry.getKey());
+            }
+        }
+        if (managed.isEmpty()) {
+            return List.of();
+        }
+
+        ComparablePath<Comparable> id = IdPaths.of(em, entity);
+
+        List<Comparable> ids = new ArrayList<>(managed.keySet());
+        List<Object> affected = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += IN_CHUNK_SIZE) {
+            List<Comparable> chunk = ids.subList(i, Math.min(i + IN_CHUNK_SIZE, ids.size()));
+            queryFactory
+                    .select(id)
+                    .from(entity)
+                    .where(where)
+                    .where(id.in(chunk))
+                    .fetch()
+                    .forEach(matchedId -> affected.add(managed.get(matchedId)));
+        }
+        return affected;
+    }
+}
@@ -0,0 +1,135 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 대량 update/delete 를 id 순서로 chunkSize 씩 나눠서, 청크마다 별도 트랜잭션으로 커밋한다.
+ *
+ * queryFactory.delete(member).where(...).execute() 한 방은 큰 테이블에서 락을 오래 잡고 undo 로그를 키운다.
+ * 여기서는 조건에 맞는 id를 키셋 방식(id &gt; 마지막 id)으로 chunkSize 만큼 찾아 그 id들만 처리하고,
+ * 필요하면 청크 사이에 쉬어서 운영 시간에도 OLTP 트래픽을 막지 않게 한다.
+ * 이미 열린 트랜잭션 안에서 호출해도 청크는 항상 새 트랜잭션으로 실행된다.
+ * 찾은 id 목록에 조건을 한 번 더 걸어서, id 를 찾은 뒤 다른 트랜잭션이 바꿔 조건에 맞지 않게 된 행은 건드리지 않는다.
+ *
+ * <pre>
+ * chunkedBulkExecutor.delete(member, member.age.gt(18), ChunkedBulkOptions.builder()
+ *         .chunkSize(5000)
+ *         .pause(Duration.ofMillis(200))
+ *         .build());
+ * </pre>
+ */
+@Slf4j
+@Component
+public class ChunkedBulkExecutor {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+
+    public ChunkedBulkExecutor(EntityManager em, JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public ChunkedBulkProgress delete(EntityPath<?> entity, Predicate where, ChunkedBulkOptions options) {
+        return execute(entity, where, options, ids -> queryFactory
+                .delete(entity)
+                .where(IdPaths.of(em, entity).in(ids), where)
+                .execute());
+    }
+
+    public ChunkedBulkProgress update(EntityPath<?> entity, Consumer<JPAUpdateClause> assignments,
+                                      Predicate where, ChunkedBulkOptions options) {
+        return execute(entity, where, options, ids -> {
+            JPAUpdateClause update = queryFactory
+                    .update(entity)
+                    .where(IdPaths.of(em, entity).in(ids), where);
+            BulkAssignments.apply(entity, assignments, update);
+            return update.execute();
+        });
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private ChunkedBulkProgress execute(EntityPath<?> entity, Predicate where, ChunkedBulkOptions options,
+                                        Function<List<Comparable>, Long> clause) {
+        if (options.getChunkSize() < 1) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다: " + options.getChunkSize());
+        }
+        long start = System.nanoTime();
+        int chunks = 0;
+        long total = 0;
+        Comparable lastId = null;
+        ChunkedBulkProgress progress = new ChunkedBulkProgress(0, 0, 0, Duration.ZERO);
+
+        while (true) {
+            Comparable after = lastId;
+            ChunkResult result = chunkTransaction.execute(status -> {
+                ComparablePath<Comparable> id = IdPaths.of(em, entity);
+                List<Comparable> ids = queryFactory
+                        .select(id)
+                        .from(entity)
+                        .where(where, after != null ? id.gt(after) : null)
+                        .orderBy(id.asc())
+                        .limit(options.getChunkSize())
+                        .fetch();
+                if (ids.isEmpty()) {
+                    return new ChunkResult(0, null, false);
+                }
+                long rows = clause.apply(ids);
+                return new ChunkResult(rows, ids.get(ids.size() - 1), ids.size() == options.getChunkSize());
+            });
+
+            if (result.lastId() == null) {
+                break;
+            }
+
+            chunks++;
+            total += result.rows();
+            lastId = result.lastId();
+            progress = new ChunkedBulkProgress(chunks, result.rows(), total, Duration.ofNanos(System.nanoTime() - start));
+            log.info("[chunked bulk] {} chunk={} rows={} total={} ({} rows/sec)",
+                    entity.getType().getSimpleName(), chunks, result.rows(), total, Math.round(progress.rowsPerSecond()));
+            options.getProgressListener().accept(progress);
+
+            if (!result.hasMore() || !pause(options.getPause())) {
+                break;
+            }
+        }
+        return progress;
+    }
+
+    private static boolean pause(Duration pause) {
+        if (pause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("[chunked bulk] 인터럽트로 중단");
+            return false;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private record ChunkResult(long rows, Comparable lastId, boolean hasMore) {
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.repository.support;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * 나눠서 실행하는 벌크 연산 옵션.
+ */
+@Getter
+@Builder
+public class ChunkedBulkOptions {
+
+    /** 한 트랜잭션에서 처리할 최대 행 수 */
+    @Builder.Default
+    private final int chunkSize = 5000;
+
+    /** 청크 사이에 쉬는 시간. DB 부하를 낮추고 다른 트랜잭션에 락을 양보한다. */
+    @Builder.Default
+    private final Duration pause = Duration.ZERO;
+
+    /** 청크가 끝날 때마다 호출 */
+    @Builder.Default
+    private final Consumer<ChunkedBulkProgress> progressListener = progress -> { };
+
+    public static ChunkedBulkOptions defaults() {
+        return builder().build();
+    }
+}
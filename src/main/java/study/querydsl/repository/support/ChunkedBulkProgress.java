@@ -0,0 +1,19 @@
+package study.querydsl.repository.support;
+
+import java.time.Duration;
+
+/**
+ * 청크 단위 벌크 연산 진행 상황. 마지막 값이 전체 결과다.
+ *
+ * @param chunks        지금까지 커밋한 청크 수
+ * @param chunkRows     마지막 청크에서 처리한 행 수
+ * @param totalRows     지금까지 처리한 행 수
+ * @param elapsed       시작부터 걸린 시간 (쉬는 시간 포함)
+ */
+public record ChunkedBulkProgress(int chunks, long chunkRows, long totalRows, Duration elapsed) {
+
+    public double rowsPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? totalRows : totalRows * 1000.0 / millis;
+    }
+}
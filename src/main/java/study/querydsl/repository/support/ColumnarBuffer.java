@@ -0,0 +1,265 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import study.querydsl.monitoring.QueryMetrics;
+import study.querydsl.monitoring.StatementCounter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 조회 결과를 컬럼별 primitive 배열에 바로 채우는 버퍼. 분석용으로 수십만 건을 읽을 때 쓴다.
+ *
+ * 엔티티를 만들지 않고 Tuple, List 도 만들지 않는다. 결과를 forward-only 스크롤로 한 행씩 읽어서 배열에 넣는다.
+ * 배열은 필요할 때 두 배로 늘리고, 다음 fetch 에서 그대로 재사용한다. (한 스레드에서만 사용)
+ * 문자열 컬럼은 사전 인코딩해서 행마다 int 코드만 저장한다.
+ * InstrumentedJPAQueryFactory 가 만든 쿼리면 fetch() 와 같이 실행 시간, 행 수, SQL 수를 QueryMetrics 에 기록한다.
+ *
+ * <pre>
+ * ColumnarBuffer buffer = new ColumnarBuffer();
+ * ColumnarBuffer.LongColumn ids = buffer.longColumn(member.id);
+ * ColumnarBuffer.IntColumn ages = buffer.intColumn(member.age);
+ * ColumnarBuffer.DictionaryColumn usernames = buffer.dictionaryColumn(member.username);
+ *
+ * int rows = buffer.fetch(queryFactory.from(member).where(member.age.goe(20)));
+ * for (int i = 0; i &lt; rows; i++) {
+ *     ids.get(i); ages.get(i); usernames.get(i);
+ * }
+ * </pre>
+ */
+public class ColumnarBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final List<Column> columns = new ArrayList<>();
+    private int size;
+
+    public LongColumn longColumn(Expression<? extends Number> expression) {
+        return add(new LongColumn(expression));
+    }
+
+    public IntColumn intColumn(Expression<? extends Number> expression) {
+        return add(new IntColumn(expression));
+    }
+
+    public DictionaryColumn dictionaryColumn(Expression<String> expression) {
+        return add(new DictionaryColumn(expression));
+    }
+
+    private <C extends Column> C add(C column) {
+        columns.add(column);
+        return column;
+    }
+
+    /**
+     * 쿼리의 select 를 이 버퍼의 컬럼들로 바꿔서 실행하고, 이전 내용을 지운 뒤 결과를 채운다.
+     *
+     * @return 읽은 행 수
+     */
+    @SuppressWarnings("unchecked")
+    public int fetch(JPAQuery<?> query) {
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("컬럼이 없습니다");
+        }
+        clear();
+
+        Expression<?>[] projection = columns.stream().map(column -> column.expression).toArray(Expression[]::new);
+        JPAQuery<?> selected = query.select(projection);
+        QueryMetrics queryMetrics = selected instanceof InstrumentedJPAQuery<?> instrumented
+                ? instrumented.queryMetrics()
+                : null;
+
+        long start = System.nanoTime();
+        String jpql = null;
+        try (StatementCounter.Scope statements = StatementCounter.start()) {
+            try {
+                Query<Object[]> hibernateQuery = selected.createQuery().unwrap(Query.class);
+                jpql = hibernateQuery.getQueryString();
+                hibernateQuery.setTupleTransformer((row, aliases) -> row);    // Querydsl 의 Tuple 변환 대신 행 배열 그대로
+                hibernateQuery.setReadOnly(true);
+                scroll(hibernateQuery);
+                record(queryMetrics, jpql, "success", start, size, statements);
+            } catch (RuntimeException e) {
+                record(queryMetrics, jpql, InstrumentedJPAQuery.outcome(e), start, 0, statements);
+                throw e;
+            }
+        }
+        return size;
+    }
+
+    private void scroll(Query<Object[]> hibernateQuery) {
+        try (ScrollableResults<Object[]> results = hibernateQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Object[] row = results.get();
+                for (int i = 0; i < row.length; i++) {
+                    columns.get(i).append(size, row[i]);
+                }
+                size++;
+            }
+        }
+    }
+
+    private static void record(QueryMetrics queryMetrics, String jpql, String outcome, long start, int rows,
+                               StatementCounter.Scope statements) {
+        if (queryMetrics != null && jpql != null) {  // 계측 쿼리가 아니거나 쿼리를 만들기 전에 실패한 경우는 제외
+            queryMetrics.recordQuery(jpql, outcome, System.nanoTime() - start, rows, statements);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 행 수만 0으로 돌린다. 배열과 사전 용량은 그대로 두고 재사용한다.
+     */
+    public void clear() {
+        size = 0;
+        columns.forEach(Column::clear);
+    }
+
+    public abstract static class Column {
+
+        private final Expression<?> expression;
+
+        private Column(Expression<?> expression) {
+            this.expression = expression;
+        }
+
+        abstract void append(int row, Object value);
+
+        void clear() {
+        }
+
+        static int grow(int length) {
+            return Math.max(INITIAL_CAPACITY, length * 2);
+        }
+    }
+
+    /**
+     * null 은 0 으로 저장한다.
+     */
+    public static final class LongColumn extends Column {
+
+        private long[] values = new long[0];
+
+        private LongColumn(Expression<? extends Number> expression) {
+            super(expression);
+        }
+
+        @Override
+        void append(int row, Object value) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[row] = value != null ? ((Number) value).longValue() : 0L;
+        }
+
+        public long get(int row) {
+            return values[row];
+        }
+
+        /**
+         * 내부 배열. 앞에서부터 size() 건만 유효하고, 다음 fetch 에서 덮어쓴다.
+         */
+        public long[] values() {
+            return values;
+        }
+    }
+
+    /**
+     * null 은 0 으로 저장한다. int 범위를 넘는 값(count, sum 등 long 결과)은 잘라내지 않고 ArithmeticException 을 던진다.
+     */
+    public static final class IntColumn extends Column {
+
+        private int[] values = new int[0];
+
+        private IntColumn(Expression<? extends Number> expression) {
+            super(expression);
+        }
+
+        @Override
+        void append(int row, Object value) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[row] = value != null ? Math.toIntExact(((Number) value).longValue()) : 0;
+        }
+
+        public int get(int row) {
+            return values[row];
+        }
+
+        /**
+         * 내부 배열. 앞에서부터 size() 건만 유효하고, 다음 fetch 에서 덮어쓴다.
+         */
+        public int[] values() {
+            return values;
+        }
+    }
+
+    /**
+     * 문자열을 사전 인덱스(int)로 저장한다. 같은 값이 반복되는 컬럼일수록 메모리가 줄어든다. null 은 -1.
+     */
+    public static final class DictionaryColumn extends Column {
+
+        private int[] codes = new int[0];
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> lookup = new HashMap<>();
+
+        private DictionaryColumn(Expression<String> expression) {
+            super(expression);
+        }
+
+        @Override
+        void append(int row, Object value) {
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length));
+            }
+            codes[row] = value != null ? encode((String) value) : -1;
+        }
+
+        private int encode(String value) {
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                lookup.put(value, code);
+            }
+            return code;
+        }
+
+        @Override
+        void clear() {
+            dictionary.clear();
+            lookup.clear();
+        }
+
+        public String get(int row) {
+            int code = codes[row];
+            return code >= 0 ? dictionary.get(code) : null;
+        }
+
+        public int code(int row) {
+            return codes[row];
+        }
+
+        /**
+         * 내부 배열. 앞에서부터 size() 건만 유효하고, 다음 fetch 에서 덮어쓴다.
+         */
+        public int[] codes() {
+            return codes;
+        }
+
+        public List<String> dictionary() {
+            return dictionary;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.NumberPath;
+
+import java.util.Collection;
+
+/**
+ * CounterUpdater 가 숫자 컬럼을 더한 뒤, 같은 트랜잭션 안에서 호출된다.
+ * 벌크 update 는 하이버네이트 엔티티 이벤트를 거치지 않으므로, 그 컬럼으로 비정규화 값을 유지하는 쪽이 구현한다.
+ */
+public interface CounterListener {
+
+    /**
+     * @param ids 더한 행의 id (id 순)
+     */
+    void counterAdded(EntityPath<?> entity, NumberPath<?> counter, Collection<?> ids);
+}
@@ -0,0 +1,174 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 숫자 컬럼을 DB에서 원자적으로 더한다. (update ... set age = age + ? where id = ?)
+ *
+ * 엔티티를 읽어서 setter 로 바꾸면(read-modify-write) 동시에 수정할 때 한 쪽 변경이 사라지거나 락을 기다린다.
+ * 여기서는 DB가 행 단위로 더하므로 읽기 없이 한 문장으로 끝나고, 동시에 실행해도 합계가 맞는다.
+ * 같은 행을 자주 더하면 coalescing() 으로 모았다가 한 번에 반영한다.
+ *
+ * <pre>
+ * counterUpdater.add(member, member.age, memberId, 1);
+ *
+ * CoalescingCounter ages = counterUpdater.coalescing(member, member.age);
+ * ages.add(memberId, 1);   // 메모리에만 더함
+ * ages.flush();            // 행마다 합계를 한 번에 반영
+ * </pre>
+ *
+ * 호출하는 쪽 트랜잭션 안에서 실행한다. (CoalescingCounter.flush 는 자체 트랜잭션, REQUIRES_NEW)
+ * 벌크 update 라 엔티티 이벤트가 없으므로, 더한 뒤 같은 트랜잭션에서 CounterListener 빈들을 호출한다. (TeamStats 등)
+ */
+@Component
+@RequiredArgsConstructor
+public class CounterUpdater {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final List<CounterListener> listeners;
+
+    /**
+     * @return 바뀐 행 수 (없는 id 면 0)
+     */
+    public <N extends Number & Comparable<N>> long add(EntityPath<?> entity, NumberPath<N> counter, Object id, long delta) {
+        Object managed = managedInstance(entity, id);
+        if (managed != null) {
+            em.flush();     // 영속성 컨텍스트에 남은 변경이 먼저 반영되도록
+        }
+
+        long count = queryFactory
+                .update(entity)
+                .set(counter, counter.add(value(counter, delta)))
+                .where(IdPaths.of(em, entity).eq((Comparable<?>) id))
+                .execute();
+
+        if (managed != null) {
+            em.detach(managed);     // 메모리의 값이 DB와 달라졌으므로 다음 조회에서 다시 읽게
+        }
+        if (count > 0) {
+            notifyListeners(entity, counter, List.of(id));
+        }
+        return count;
+    }
+
+    /**
+     * id 별 증가량을 반영한다. id 순으로 정렬해서 IN_CHUNK_SIZE 개씩 update ... where id in (...) 한 문장으로 보낸다.
+     * 증가량이 다르면 set age = case when id = ? then age + ? ... end 로 한 문장에 담는다.
+     *
+     * 행 락을 항상 id 순으로 잡으므로 여러 트랜잭션(다른 CoalescingCounter, 다른 서버)이 같은 행들을 동시에 더해도 교착되지 않는다.
+     * (증가량별로 문장을 나누면 문장마다 다른 행 집합을 잡아서 트랜잭션끼리 락 순서가 엇갈린다)
+     * 영속성 컨텍스트에 올라와 있는 엔티티는 갱신하지 않으므로 새 트랜잭션(또는 비어있는 영속성 컨텍스트)에서 호출한다.
+     *
+     * @return 실행한 update 문 수
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public <N extends Number & Comparable<N>> int addAll(EntityPath<?> entity, NumberPath<N> counter, Map<?, Long> deltas) {
+        TreeMap<Comparable, Long> sorted = new TreeMap<>();
+        deltas.forEach((id, delta) -> {
+            if (delta != 0) {
+                sorted.put((Comparable) id, delta);
+            }
+        });
+
+        ComparablePath<Comparable> idPath = IdPaths.of(em, entity);
+        List<Map.Entry<Comparable, Long>> rows = new ArrayList<>(sorted.entrySet());
+        int statements = 0;
+        for (int i = 0; i < rows.size(); i += IN_CHUNK_SIZE) {
+            List<Map.Entry<Comparable, Long>> chunk = rows.subList(i, Math.min(i + IN_CHUNK_SIZE, rows.size()));
+            queryFactory
+                    .update(entity)
+                    .set(counter, added(counter, idPath, chunk))
+                    .where(idPath.in(chunk.stream().map(Map.Entry::getKey).toList()))
+                    .execute();
+            statements++;
+        }
+        if (!sorted.isEmpty()) {
+            notifyListeners(entity, counter, sorted.keySet());
+        }
+        return statements;
+    }
+
+    /**
+     * flush() 는 호출한 쪽 트랜잭션과 상관없이 자체 트랜잭션(REQUIRES_NEW)으로 반영한다.
+     * 바깥 트랜잭션에 참여하면 그 트랜잭션이 롤백될 때 이미 꺼낸 증가량이 같이 사라진다.
+     */
+    public <N extends Number & Comparable<N>> CoalescingCounter coalescing(EntityPath<?> entity, NumberPath<N> counter) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return new CoalescingCounter(deltas -> requiresNew.execute(status -> addAll(entity, counter, deltas)));
+    }
+
+    /**
+     * 청크의 새 값. 증가량이 모두 같으면 age + ?, 다르면 id 별 case 식
+     */
+    @SuppressWarnings("rawtypes")
+    private static <N extends Number & Comparable<N>> Expression<N> added(NumberPath<N> counter,
+                                                                          ComparablePath<Comparable> idPath,
+                                                                          List<Map.Entry<Comparable, Long>> chunk) {
+        long first = chunk.get(0).getValue();
+        if (chunk.stream().allMatch(row -> row.getValue() == first)) {
+            return counter.add(value(counter, first));
+        }
+
+        CaseBuilder.Cases<N, NumberExpression<N>> cases = null;
+        for (Map.Entry<Comparable, Long> row : chunk) {
+            BooleanExpression matches = idPath.eq(row.getKey());
+            NumberExpression<N> value = counter.add(value(counter, row.getValue()));
+            cases = cases == null ? new CaseBuilder().when(matches).then(value) : cases.when(matches).then(value);
+        }
+        return cases.otherwise(counter);
+    }
+
+    private void notifyListeners(EntityPath<?> entity, NumberPath<?> counter, Collection<?> ids) {
+        for (CounterListener listener : listeners) {
+            listener.counterAdded(entity, counter, ids);
+        }
+    }
+
+    private Object managedInstance(EntityPath<?> entity, Object id) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(entity.getType());
+        EntityKey key = session.generateEntityKey(id, persister);
+        return session.getPersistenceContextInternal().getEntity(key);
+    }
+
+    /**
+     * 컬럼 타입에 맞춘 증가량. int 컬럼에 long 을 더하면 결과 타입이 달라져 대입할 수 없다.
+     */
+    @SuppressWarnings("unchecked")
+    private static <N extends Number & Comparable<N>> N value(NumberPath<N> counter, long delta) {
+        Class<?> type = counter.getType();
+        if (type == Integer.class) {
+            return (N) Integer.valueOf(Math.toIntExact(delta));
+        }
+        if (type == Long.class) {
+            return (N) Long.valueOf(delta);
+        }
+        throw new IllegalArgumentException("정수 컬럼만 지원합니다: " + counter);
+    }
+}
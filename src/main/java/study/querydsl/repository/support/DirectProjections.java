@@ -0,0 +1,204 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean / Projections.fields 와 같은 사용법이지만 리플렉션 없이 DTO를 만든다.
+ *
+ * 기본 생성자와 setter 는 처음 한 번 LambdaMetafactory 로 Supplier, BiConsumer 를 만들어 두고 row 마다 직접 호출한다.
+ * setter 없는 필드는 MethodHandle 로 넣는다. 만든 결과는 (DTO 타입, 방식, 프로퍼티 이름)별로 캐시한다.
+ * 캐시는 클래스 이름이 아니라 Class 자체에 붙여 두므로(ClassValue) devtools 재시작처럼 클래스로더가 바뀌면 새로 만들고, 옛 클래스로더를 붙잡지 않는다.
+ * 별칭(member.username.as("name"), ExpressionUtils.as(subQuery, "age"))으로 DTO 프로퍼티 이름을 지정한다.
+ * null 값은 넣지 않고 건너뛴다. (primitive 필드는 기본값 유지)
+ *
+ * <pre>
+ * queryFactory
+ *         .select(DirectProjections.fields(UserDto.class, member.username.as("name"), member.age))
+ *         .from(member)
+ *         .fetch();
+ * </pre>
+ */
+public final class DirectProjections {
+
+    private static final ClassValue<Map<String, Plan>> PLANS = new ClassValue<>() {
+        @Override
+        protected Map<String, Plan> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private DirectProjections() {
+    }
+
+    /**
+     * setter 로 채운다.
+     */
+    public static <T> DirectBean<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return new DirectBean<>(type, false, exprs);
+    }
+
+    /**
+     * 필드에 바로 넣는다. (setter 무시)
+     */
+    public static <T> DirectBean<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        return new DirectBean<>(type, true, exprs);
+    }
+
+    public static final class DirectBean<T> extends FactoryExpressionBase<T> {
+
+        private final List<Expression<?>> args;
+        private final Plan plan;
+
+        private DirectBean(Class<? extends T> type, boolean fieldAccess, Expression<?>... exprs) {
+            super(type);
+            List<Expression<?>> args = new ArrayList<>(exprs.length);
+            List<String> names = new ArrayList<>(exprs.length);
+            for (Expression<?> expr : exprs) {
+                if (expr instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS) {
+                    args.add(alias.getArg(0));
+                    names.add(((Path<?>) alias.getArg(1)).getMetadata().getName());
+                } else if (expr instanceof Path<?> path) {
+                    args.add(path);
+                    names.add(path.getMetadata().getName());
+                } else {
+                    throw new IllegalArgumentException("별칭이 필요합니다: " + expr);
+                }
+            }
+            this.args = List.copyOf(args);
+            this.plan = PLANS.get(type).computeIfAbsent((fieldAccess ? "fields" : "bean") + names,
+                    key -> Plan.create(type, fieldAccess, names));
+        }
+
+        Plan plan() {
+            return plan;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T newInstance(Object... values) {
+            Object dto = plan.constructor.get();
+            Setter[] setters = plan.setters;
+            for (int i = 0; i < setters.length; i++) {
+                if (values[i] != null) {
+                    setters[i].set(dto, values[i]);
+                }
+            }
+            return (T) dto;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Setter {
+        void set(Object target, Object value);
+    }
+
+    record Plan(Supplier<Object> constructor, Setter[] setters) {
+
+        static Plan create(Class<?> type, boolean fieldAccess, List<String> names) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                Setter[] setters = new Setter[names.size()];
+                for (int i = 0; i < setters.length; i++) {
+                    setters[i] = fieldAccess ? fieldSetter(lookup, type, names.get(i)) : propertySetter(lookup, type, names.get(i));
+                }
+                return new Plan(constructor(lookup, type), setters);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException(type.getName() + " 에 대한 프로젝션을 만들 수 없습니다", e);
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Supplier<Object> constructor(MethodHandles.Lookup lookup, Class<?> type) throws Throwable {
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Setter propertySetter(MethodHandles.Lookup lookup, Class<?> type, String name) throws Throwable {
+            Method method = findSetter(type, name);
+            MethodHandle setter = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    setter,
+                    MethodType.methodType(void.class, type, MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType()));
+            BiConsumer<Object, Object> consumer = (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            return consumer::accept;
+        }
+
+        private static Setter fieldSetter(MethodHandles.Lookup lookup, Class<?> type, String name) throws ReflectiveOperationException {
+            MethodHandle setter = lookup.unreflectSetter(findField(type, name))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (target, value) -> {
+                try {
+                    setter.invokeExact(target, value);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+
+        private static Method findSetter(Class<?> type, String name) {
+            String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals(setterName) && method.getParameterCount() == 1
+                        && !Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            }
+            throw new IllegalArgumentException(type.getName() + " 에 " + setterName + " 가 없습니다");
+        }
+
+        private static Field findField(Class<?> type, String name) {
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                        return field;
+                    }
+                }
+            }
+            throw new IllegalArgumentException(type.getName() + " 에 " + name + " 필드가 없습니다");
+        }
+    }
+}
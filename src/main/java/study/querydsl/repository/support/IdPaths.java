@@ -0,0 +1,23 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+
+/**
+ * Q타입만으로 식별자 경로(member.id 등)를 만든다. 식별자 이름은 JPA 메타모델에서 찾는다.
+ */
+final class IdPaths {
+
+    private IdPaths() {
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static ComparablePath<Comparable> of(EntityManager em, EntityPath<?> entity) {
+        EntityType<?> entityType = em.getMetamodel().entity(entity.getType());
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        return new PathBuilder<>(entity.getType(), entity.getMetadata()).getComparable(idName, Comparable.class);
+    }
+}
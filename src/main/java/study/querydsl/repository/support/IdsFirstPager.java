@@ -0,0 +1,246 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 페치 조인한 쿼리를 두 번에 나눠 페이징한다.
+ *
+ * 1. 페치 조인을 뺀 좁은 쿼리로 현재 페이지의 id 만 정렬/offset/limit 해서 가져온다. (정렬 컬럼 + id 인덱스로 커버)
+ * 2. 원래 쿼리의 조인(페치 조인 포함)에 조건 대신 id in (...) 만 걸어서 엔티티 그래프를 가져오고 1번의 순서대로 다시 정렬한다.
+ *    조건은 1번에서 루트를 고를 때만 쓴다. 컬렉션 별칭에 건 조건(member.age &gt;= 20)으로 팀을 골라도
+ *    페치 조인한 컬렉션은 조건에 맞는 회원만이 아니라 그 팀의 회원 전체로 채워진다.
+ *
+ * 컬렉션 페치 조인 + offset/limit 을 그대로 쓰면 하이버네이트가 전체를 읽어서 메모리에서 페이징하고,
+ * to-one 페치 조인이라도 정렬이 id 까지 고정되지 않으면 페이지가 흔들린다. 여기서는 DB, 메모리 모두 페이지 크기만큼만 다룬다.
+ *
+ * <pre>
+ * Page&lt;Team&gt; page = idsFirstPager.fetchPage(queryFactory
+ *         .selectFrom(team)
+ *         .leftJoin(team.members, member).fetchJoin()
+ *         .orderBy(team.name.asc()), pageable);
+ * </pre>
+ *
+ * 정렬은 쿼리의 orderBy 를 쓰고(Pageable 의 Sort 는 보지 않음), 마지막에 id 오름차순을 붙여 순서를 고정한다.
+ */
+@SuppressWarnings("rawtypes")
+@Component
+@RequiredArgsConstructor
+public class IdsFirstPager {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public <T> Page<T> fetchPage(JPAQuery<T> query, Pageable pageable) {
+        QueryMetadata source = query.getMetadata();
+        EntityPath<?> root = root(source);
+        ComparablePath<Comparable> id = IdPaths.of(em, root);
+
+        List<Comparable> ids = fetchIds(source, id, pageable);
+        List<T> content = ids.isEmpty() ? List.of() : fetchGraph(source, id, ids);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(source, id));
+    }
+
+    /**
+     * 1단계: 페이지의 id 만. 조건/정렬에 쓰이지 않는 left 페치 조인은 빼고, 남는 페치 조인은 일반 조인으로 바꾼다.
+     *
+     * 컬렉션 조인이 남으면 id 로 group by 해서 루트 하나가 한 row 가 되게 한다. (offset/limit 이 루트 단위로 동작)
+     * 이때 정렬 컬럼은 오름차순이면 min, 내림차순이면 max 로 모은다.
+     * 예) 팀을 member.age 오름차순으로 정렬하면 가장 어린 회원의 나이 순
+     */
+    private List<Comparable> fetchIds(QueryMetadata source, ComparablePath<Comparable> id, Pageable pageable) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>(source.getOrderBy());
+        if (orders.stream().noneMatch(order -> order.getTarget().equals(id))) {
+            orders.add(id.asc());
+        }
+
+        JPAQuery<?> idQuery = queryFactory.query();
+        boolean toMany = copyNarrowJoins(source, idQuery.getMetadata(), orders);
+        if (toMany) {
+            orders = aggregated(orders, id);
+            idQuery.groupBy(id);
+        }
+        List<Tuple> rows = idQuery
+                .select(selection(id, orders))
+                .where(source.getWhere())
+                .orderBy(orders.toArray(OrderSpecifier[]::new))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Set<Comparable> ids = new LinkedHashSet<>();    // 순서는 유지하고 혹시 모를 중복은 제거
+        for (Tuple row : rows) {
+            ids.add(row.get(id));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<OrderSpecifier<?>> aggregated(List<OrderSpecifier<?>> orders, ComparablePath<Comparable> id) {
+        List<OrderSpecifier<?>> aggregated = new ArrayList<>(orders.size());
+        for (OrderSpecifier<?> order : orders) {
+            Expression<?> target = order.getTarget();
+            if (!target.equals(id)) {
+                target = ExpressionUtils.operation(target.getType(),
+                        order.isAscending() ? Ops.AggOps.MIN_AGG : Ops.AggOps.MAX_AGG, target);
+            }
+            aggregated.add(new OrderSpecifier(order.getOrder(), target, order.getNullHandling()));
+        }
+        return aggregated;
+    }
+
+    /**
+     * 2단계: 원래 쿼리의 조인(페치 조인 포함)으로 id in (...) 만 가져와서 1단계 순서로 맞춘다.
+     * 조건을 다시 걸면 루트는 이미 골랐으니 달라지는 게 없고, 컬렉션 별칭 조건이면 컬렉션이 일부만 채워진 채 영속 상태로 남는다.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> fetchGraph(QueryMetadata source, ComparablePath<Comparable> id, List<Comparable> ids) {
+        JPAQuery<T> graphQuery = (JPAQuery<T>) queryFactory.query().select(source.getProjection());
+        QueryMetadata target = graphQuery.getMetadata();
+        for (JoinExpression join : source.getJoins()) {
+            target.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+            join.getFlags().forEach(target::addJoinFlag);
+        }
+        graphQuery.where(id.in(ids));
+
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        Map<Object, T> byId = new HashMap<>();
+        for (T entity : graphQuery.fetch()) {
+            byId.put(util.getIdentifier(entity), entity);
+        }
+
+        List<T> content = new ArrayList<>(ids.size());
+        for (Comparable pageId : ids) {
+            T entity = byId.get(pageId);
+            if (entity != null) {   // 두 쿼리 사이에 삭제된 경우
+                content.add(entity);
+            }
+        }
+        return content;
+    }
+
+    private long count(QueryMetadata source, ComparablePath<Comparable> id) {
+        JPAQuery<Long> countQuery = queryFactory.query().select(id.countDistinct());
+        copyNarrowJoins(source, countQuery.getMetadata(), List.of());
+        return countQuery.where(source.getWhere()).fetchOne();
+    }
+
+    private static EntityPath<?> root(QueryMetadata source) {
+        Expression<?> from = source.getJoins().get(0).getTarget();
+        if (!(from instanceof EntityPath<?> root) || !root.equals(source.getProjection())) {
+            throw new IllegalArgumentException("selectFrom(엔티티) 형태의 쿼리만 지원합니다: " + source.getProjection());
+        }
+        return root;
+    }
+
+    private static Expression<?>[] selection(ComparablePath<Comparable> id, List<OrderSpecifier<?>> orders) {
+        List<Expression<?>> selection = new ArrayList<>();
+        selection.add(id);
+        for (OrderSpecifier<?> order : orders) {
+            if (!selection.contains(order.getTarget())) {
+                selection.add(order.getTarget());
+            }
+        }
+        return selection.toArray(Expression[]::new);
+    }
+
+    /**
+     * 건수와 순서를 바꾸지 않는 조인만 복사한다. 뒤에서부터 보면서 조건/정렬/뒤쪽 조인에서 쓰는 별칭을 모은다.
+     *
+     * @return 컬렉션 조인이 남았는지 (row 가 늘어날 수 있음)
+     */
+    private static boolean copyNarrowJoins(QueryMetadata source, QueryMetadata target, List<OrderSpecifier<?>> orders) {
+        Set<Path<?>> used = new HashSet<>();
+        roots(source.getWhere(), used);
+        orders.forEach(order -> roots(order.getTarget(), used));
+
+        List<JoinExpression> joins = source.getJoins();
+        boolean[] keep = new boolean[joins.size()];
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            boolean fetch = join.hasFlag(JPAQueryMixin.FETCH);
+            keep[i] = i == 0 || !fetch || join.getType() != JoinType.LEFTJOIN || used.contains(alias(join));
+            if (keep[i]) {
+                roots(join.getTarget(), used);
+                roots(join.getCondition(), used);
+            }
+        }
+
+        boolean toMany = false;
+        for (int i = 0; i < joins.size(); i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            JoinExpression join = joins.get(i);
+            target.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+            toMany |= i > 0 && joinedPath(join) instanceof CollectionExpression;
+        }
+        return toMany;
+    }
+
+    private static Expression<?> joinedPath(JoinExpression join) {
+        return join.getTarget() instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS
+                ? alias.getArg(0) : join.getTarget();
+    }
+
+    private static Expression<?> alias(JoinExpression join) {
+        return join.getTarget() instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS
+                ? alias.getArg(1) : join.getTarget();
+    }
+
+    private static void roots(Expression<?> expression, Set<Path<?>> roots) {
+        if (expression instanceof Path<?> path) {
+            roots.add(path.getRoot());
+        } else if (expression instanceof Operation<?> operation) {
+            operation.getArgs().forEach(arg -> roots(arg, roots));
+        } else if (expression instanceof TemplateExpression<?> template) {
+            template.getArgs().forEach(arg -> {
+                if (arg instanceof Expression<?> argExpression) {
+                    roots(argExpression, roots);
+                }
+            });
+        } else if (expression instanceof FactoryExpression<?> factory) {
+            factory.getArgs().forEach(arg -> roots(arg, roots));
+        } else if (expression instanceof SubQueryExpression<?> subQuery) {
+            roots(subQuery.getMetadata().getWhere(), roots);
+        }
+    }
+}
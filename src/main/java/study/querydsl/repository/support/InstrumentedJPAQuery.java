@@ -0,0 +1,184 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import study.querydsl.monitoring.QueryMetrics;
+import study.querydsl.monitoring.StatementCounter;
+
+import java.sql.SQLTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * fetch(), fetchOne(), stream() 의 실행 시간과 반환 행 수를 QueryMetrics 에 기록하는 JPAQuery.
+ * InstrumentedJPAQueryFactory 가 만든다.
+ *
+ * stream() 은 닫을 때 기록한다. (쿼리 실행부터 닫을 때까지의 시간, 꺼낸 행 수)
+ * 닫지 않으면 기록되지 않으므로 try-with-resources 로 닫아야 한다. 커서도 그때 닫힌다.
+ *
+ * 기본 힌트는 쿼리에서 setHint 로 주지 않은 것만 붙인다. 타임아웃으로 실패하면 outcome=timeout 으로 기록한다.
+ */
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryMetrics queryMetrics;
+    private final Map<String, Object> defaultHints;
+    private String queryString;
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetrics queryMetrics) {
+        this(em, queryMetrics, Map.of());
+    }
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetrics queryMetrics, Map<String, Object> defaultHints) {
+        super(em);
+        this.queryMetrics = queryMetrics;
+        this.defaultHints = defaultHints;
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        Query query = super.createQuery(modifiers, forCount);
+        defaultHints.forEach((name, value) -> {
+            if (!hints.containsKey(name)) {
+                query.setHint(name, value);
+            }
+        });
+        // 이미 직렬화된 JPQL을 그대로 가져온다. (다시 직렬화하지 않음)
+        queryString = query.unwrap(org.hibernate.query.Query.class).getQueryString();
+        return query;
+    }
+
+    /**
+     * 실행할 때 붙는 힌트. 기본 힌트 위에 쿼리에서 준 힌트를 덮어쓴다. (PreparedQuery 가 그대로 옮겨 쓴다)
+     */
+    Map<String, Object> effectiveHints() {
+        Map<String, Object> effective = new LinkedHashMap<>(defaultHints);
+        effective.putAll(hints);
+        return effective;
+    }
+
+    QueryMetrics queryMetrics() {
+        return queryMetrics;
+    }
+
+    @Override
+    public List<T> fetch() {
+        long start = System.nanoTime();
+        try (StatementCounter.Scope statements = StatementCounter.start()) {
+            try {
+                List<T> result = super.fetch();
+                record("success", start, result.size(), statements);
+                return result;
+            } catch (RuntimeException e) {
+                record(outcome(e), start, 0, statements);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public T fetchOne() {
+        long start = System.nanoTime();
+        try (StatementCounter.Scope statements = StatementCounter.start()) {
+            try {
+                T result = super.fetchOne();
+                record("success", start, result != null ? 1 : 0, statements);
+                return result;
+            } catch (RuntimeException e) {
+                record(outcome(e), start, 0, statements);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public Stream<T> stream() {
+        Execution execution = new Execution();
+        Stream<T> source = execution.start(super::stream);
+        Spliterator<T> rows = source.spliterator();
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                return execution.advance(() -> rows.tryAdvance(row -> {
+                    execution.rows++;
+                    action.accept(row);
+                }));
+            }
+        }, false).onClose(() -> execution.close(source::close));
+    }
+
+    /**
+     * stream() 한 번의 실행. 쿼리 실행 시점의 SQL 만 모으고, 결과를 다 읽고 닫을 때 기록한다.
+     */
+    private class Execution {
+
+        private final long start = System.nanoTime();
+        private StatementCounter.Scope statements;
+        private String outcome = "success";
+        private int rows;
+        private boolean recorded;
+
+        <R> R start(Supplier<R> query) {
+            try (StatementCounter.Scope scope = StatementCounter.start()) {
+                statements = scope;
+                try {
+                    return query.get();
+                } catch (RuntimeException e) {
+                    outcome = outcome(e);
+                    finish();
+                    throw e;
+                }
+            }
+        }
+
+        boolean advance(BooleanSupplier next) {
+            try {
+                return next.getAsBoolean();
+            } catch (RuntimeException e) {
+                outcome = outcome(e);
+                throw e;
+            }
+        }
+
+        void close(Runnable closeSource) {
+            try {
+                closeSource.run();
+            } finally {
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (!recorded) {
+                recorded = true;
+                record(outcome, start, rows, statements);
+            }
+        }
+    }
+
+    static String outcome(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof jakarta.persistence.QueryTimeoutException
+                    || cause instanceof org.hibernate.QueryTimeoutException
+                    || cause instanceof SQLTimeoutException) {
+                return "timeout";
+            }
+        }
+        return "error";
+    }
+
+    private void record(String outcome, long start, int rows, StatementCounter.Scope statements) {
+        if (queryString != null) {  // 쿼리를 만들기 전에 실패한 경우는 제외
+            queryMetrics.recordQuery(queryString, outcome, System.nanoTime() - start, rows, statements);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAInsertClause;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.SpecHints;
+import study.querydsl.monitoring.QueryMetrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * select(), selectFrom() 등으로 만드는 모든 쿼리를 InstrumentedJPAQuery 로 만든다.
+ * defaultHints 는 모든 쿼리에 붙이는 기본 힌트 (타임아웃, fetch size 등)
+ *
+ * update(), delete(), insert() 절에는 기본 힌트 중 타임아웃만 붙인다. (fetch size, 읽기 전용은 조회에만 의미가 있다)
+ * 절은 내부에서 바로 em.createQuery 를 부르고 실행하므로, 만든 Query 에 힌트를 붙이는 EntityManager 를 넘긴다.
+ */
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final QueryMetrics queryMetrics;
+    private final Map<String, Object> defaultHints;
+    private final EntityManager clauseEntityManager;
+
+    public InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+        this(em, queryMetrics, Map.of());
+    }
+
+    public InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics queryMetrics, Map<String, Object> defaultHints) {
+        super(em);
+        this.em = em;
+        this.queryMetrics = queryMetrics;
+        this.defaultHints = Map.copyOf(defaultHints);
+
+        Object timeout = defaultHints.get(SpecHints.HINT_SPEC_QUERY_TIMEOUT);
+        this.clauseEntityManager = timeout != null
+                ? withHints(em, Map.of(SpecHints.HINT_SPEC_QUERY_TIMEOUT, timeout))
+                : em;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new InstrumentedJPAQuery<Void>(em, queryMetrics, defaultHints);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(clauseEntityManager, path, JPAProvider.getTemplates(em));
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(clauseEntityManager, path, JPAProvider.getTemplates(em));
+    }
+
+    @Override
+    public JPAInsertClause insert(EntityPath<?> path) {
+        return new JPAInsertClause(clauseEntityManager, path, JPAProvider.getTemplates(em));
+    }
+
+    /**
+     * createQuery 로 만든 Query 에 힌트를 붙이는 EntityManager. 나머지 호출은 그대로 넘긴다.
+     */
+    private static EntityManager withHints(EntityManager em, Map<String, Object> hints) {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(em, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Query query && method.getName().equals("createQuery")) {
+                        hints.forEach(query::setHint);
+                    }
+                    return result;
+                });
+    }
+}
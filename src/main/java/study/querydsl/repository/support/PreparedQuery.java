@@ -0,0 +1,140 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import study.querydsl.monitoring.QueryMetrics;
+import study.querydsl.monitoring.StatementCounter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 한 번만 JPQL로 직렬화해두고 파라미터만 바꿔서 실행하는 쿼리.
+ * 값이 바뀌는 자리는 Param 으로 만들어두고, 실행할 때 bind().set(param, value) 로 채운다.
+ * 매번 같은 JPQL 문자열을 넘기므로 하이버네이트의 쿼리 플랜 캐시도 그대로 재사용된다.
+ * 모양 쿼리의 힌트(JPAQueryFactory 의 기본 힌트 + setHint)도 그대로 붙인다.
+ * 모양 쿼리가 InstrumentedJPAQuery 면 fetch(), fetchOne() 도 같은 JPQL 모양으로 QueryMetrics 에 기록한다. (타임아웃은 outcome=timeout)
+ */
+public class PreparedQuery<T> {
+
+    private final EntityManager em;
+    private final String jpql;
+    private final List<Object> constants;
+    private final QueryModifiers modifiers;
+    private final Map<String, Object> hints;
+    private final FactoryExpression<T> factoryExpression;
+    private final QueryMetrics queryMetrics;
+
+    @SuppressWarnings("unchecked")
+    PreparedQuery(EntityManager em, JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata();
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(metadata, false, null);
+
+        this.em = em;
+        this.jpql = serializer.toString();
+        this.constants = Collections.unmodifiableList(new ArrayList<>(serializer.getConstants()));
+        this.modifiers = metadata.getModifiers();
+        if (query instanceof InstrumentedJPAQuery<?> instrumented) {
+            this.hints = Collections.unmodifiableMap(instrumented.effectiveHints());
+            this.queryMetrics = instrumented.queryMetrics();
+        } else {
+            this.hints = Map.of();
+            this.queryMetrics = null;
+        }
+
+        // 프로젝션(Projections.xxx, @QueryProjection, Tuple)은 결과 행을 직접 변환한다.
+        Expression<?> projection = metadata.getProjection();
+        this.factoryExpression = projection instanceof FactoryExpression
+                ? (FactoryExpression<T>) projection
+                : null;
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public Map<String, Object> getHints() {
+        return hints;
+    }
+
+    public Binding bind() {
+        return new Binding();
+    }
+
+    public class Binding {
+
+        private final Map<ParamExpression<?>, Object> params = new HashMap<>();
+
+        public <P> Binding set(ParamExpression<P> param, P value) {
+            params.put(param, value);
+            return this;
+        }
+
+        public List<T> fetch() {
+            if (queryMetrics == null) {
+                return execute();
+            }
+            long start = System.nanoTime();
+            try (StatementCounter.Scope statements = StatementCounter.start()) {
+                try {
+                    List<T> result = execute();
+                    queryMetrics.recordQuery(jpql, "success", System.nanoTime() - start, result.size(), statements);
+                    return result;
+                } catch (RuntimeException e) {
+                    queryMetrics.recordQuery(jpql, InstrumentedJPAQuery.outcome(e), System.nanoTime() - start, 0, statements);
+                    throw e;
+                }
+            }
+        }
+
+        public T fetchOne() {
+            List<T> result = fetch();
+            if (result.size() > 1) {
+                throw new NonUniqueResultException();
+            }
+            return result.isEmpty() ? null : result.get(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<T> execute() {
+            List<?> rows = createQuery().getResultList();
+            if (factoryExpression == null) {
+                return (List<T>) rows;
+            }
+
+            List<T> result = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                result.add(factoryExpression.newInstance(row instanceof Object[] ? (Object[]) row : new Object[]{row}));
+            }
+            return result;
+        }
+
+        private Query createQuery() {
+            Query query = em.createQuery(jpql);
+            JPAUtil.setConstants(query, constants, params);    // Param 값이 빠져 있으면 ParamNotSetException
+            hints.forEach(query::setHint);
+
+            if (modifiers.getLimitAsInteger() != null) {
+                query.setMaxResults(modifiers.getLimitAsInteger());
+            }
+            if (modifiers.getOffsetAsInteger() != null) {
+                query.setFirstResult(modifiers.getOffsetAsInteger());
+            }
+            return query;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 쿼리 모양(Shape)별 PreparedQuery 보관소.
+ * 모양은 쿼리를 만드는 함수와 함께 static final 상수로 선언하고, 그 상수 자체(identity)가 키다.
+ * 문자열 키처럼 두 호출 위치가 키를 겹쳐 써서 다른 쿼리를 돌려받는 일이 없고, 결과 타입도 모양에서 정해진다.
+ * 모양별로 처음 한 번만 쿼리를 만들고 직렬화한다. 값은 Param 으로 넘긴다.
+ *
+ * 쓰는 곳에서 골라 쓰는 기능이다. 검색 리포지토리는 조건 조합에 따라 모양이 달라지고 QueryResultCache 를 거치므로 쓰지 않는다.
+ *
+ * <pre>
+ * static final PreparedQueryCache.Shape&lt;Member&gt; USERNAME_AND_AGE = PreparedQueryCache.shape(queryFactory -&gt; queryFactory
+ *         .selectFrom(member)
+ *         .where(member.username.eq(USERNAME), member.age.eq(AGE)));
+ *
+ * preparedQueryCache.get(USERNAME_AND_AGE).bind().set(USERNAME, "member1").set(AGE, 10).fetch();
+ * </pre>
+ */
+@Component
+@RequiredArgsConstructor
+public class PreparedQueryCache {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final Map<Shape<?>, PreparedQuery<?>> cache = new ConcurrentHashMap<>();
+
+    public static <T> Shape<T> shape(Function<JPAQueryFactory, JPAQuery<T>> query) {
+        return new Shape<>(query);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> PreparedQuery<T> get(Shape<T> shape) {
+        return (PreparedQuery<T>) cache.computeIfAbsent(shape, s -> new PreparedQuery<>(em, shape.query.apply(queryFactory)));
+    }
+
+    /**
+     * 쿼리 모양. 호출할 때마다 만들지 말고 상수로 둘 것. (equals 는 identity)
+     */
+    public static final class Shape<T> {
+
+        private final Function<JPAQueryFactory, JPAQuery<T>> query;
+
+        private Shape(Function<JPAQueryFactory, JPAQuery<T>> query) {
+            this.query = query;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 자주 반복되는 검색 쿼리 결과를 메모리에 캐시한다.
+ * 키는 JPQL + 바인딩 값 + offset/limit + 프로젝션 타입이고, 개수(max-entries)와 시간(ttl)으로 축출한다.
+ *
+ * 쿼리가 읽는 테이블마다 버전을 두고, 결과를 넣을 때의 버전과 꺼낼 때의 버전이 다르면 버린다.
+ * 버전은 QueryResultCacheInvalidator 가 insert/update/delete SQL을 볼 때 올린다.
+ * (em.persist/merge/remove 의 flush, Querydsl update/delete 절, JPQL 벌크 연산 모두 SQL 로 보인다)
+ * 쓰기 트랜잭션은 커밋/롤백 후에 한 번 더 올리고, 그 전까지 그 트랜잭션에서 쓴 테이블을 읽는 쿼리는 캐시를 거치지 않는다.
+ * 하이버네이트를 거치지 않은 변경(다른 서버, JDBC 직접 실행)은 ttl 이 지나야 반영된다.
+ *
+ * 복제본을 쓰면(querydsl.datasource.replication.enabled) 읽기 전용 트랜잭션의 조회는 복제본으로 간다.
+ * 커밋 직후 버전을 올려도 복제본에는 아직 쓰기가 안 들어왔을 수 있어서, 그때 읽은 옛 결과가 새 버전으로 캐시되면 ttl 까지 남는다.
+ * 그래서 읽는 테이블이 최근(querydsl.result-cache.replica-lag, 기본 2초) 무효화됐으면 복제본에서 읽은 결과는 캐시에 넣지 않는다.
+ * 복제 지연이 이보다 길면 그만큼 늘려야 한다.
+ *
+ * 엔티티는 영속성 컨텍스트에 묶여 있어서 캐시하지 않는다. DTO 나 값으로 조회할 것.
+ * 캐시된 목록과 DTO 는 여러 요청이 같이 쓰므로 수정하면 안 된다. ttl 을 0으로 주면 캐시하지 않는다.
+ *
+ * querydsl.result-cache.requests      - result=hit/miss/stale/bypass
+ * querydsl.result-cache.hit-ratio     - hit / (hit + miss + stale)
+ * querydsl.result-cache.age           - 캐시에서 내준 결과가 만들어진 뒤 지난 시간
+ * querydsl.result-cache.invalidations - 테이블별 무효화 횟수
+ */
+@Component
+public class QueryResultCache {
+
+    private static final JPQLTemplates TEMPLATES = JPQLTemplates.DEFAULT;
+
+    private final EntityManager em;
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final boolean replication;
+    private final long replicaLagNanos;
+    private final Cache<String, CachedResult> cache;
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> invalidatedAt = new ConcurrentHashMap<>();
+    private final Map<Class<?>, String[]> tablesByEntity = new ConcurrentHashMap<>();
+    private final Map<String, Counter> invalidations = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+    private final Counter bypass;
+    private final Timer age;
+
+    public QueryResultCache(EntityManager em,
+                            MeterRegistry registry,
+                            @Value("${querydsl.result-cache.ttl:30s}") Duration ttl,
+                            @Value("${querydsl.result-cache.max-entries:10000}") long maxEntries,
+                            @Value("${querydsl.datasource.replication.enabled:false}") boolean replication,
+                            @Value("${querydsl.result-cache.replica-lag:2s}") Duration replicaLag) {
+        this.em = em;
+        this.registry = registry;
+        this.enabled = !ttl.isZero();
+        this.replication = replication;
+        this.replicaLagNanos = replicaLag.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(enabled ? ttl : Duration.ofNanos(1))
+                .build();
+
+        this.hits = requests("hit");
+        this.misses = requests("miss");
+        this.stale = requests("stale");
+        this.bypass = requests("bypass");
+        this.age = Timer.builder("querydsl.result-cache.age")
+                .description("캐시에서 내준 결과의 나이")
+                .register(registry);
+        Gauge.builder("querydsl.result-cache.hit-ratio", this, QueryResultCache::hitRatio)
+                .description("캐시 적중률")
+                .register(registry);
+        Gauge.builder("querydsl.result-cache.size", cache, Cache::estimatedSize)
+                .description("캐시된 쿼리 수")
+                .register(registry);
+    }
+
+    /**
+     * 같은 쿼리(조건, 바인딩 값, 페이지)의 결과가 있고 그 사이 읽는 테이블에 쓰기가 없었으면 캐시된 결과를, 아니면 실행 결과를 돌려준다.
+     */
+    public <T> List<T> fetch(JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata();
+        if (containsEntity(metadata.getProjection())) {
+            throw new IllegalArgumentException("엔티티 조회 결과는 캐시할 수 없습니다: " + metadata.getProjection());
+        }
+        if (!enabled) {
+            return query.fetch();
+        }
+
+        flushIfNeeded();
+        String[] tables = tables(metadata);
+        if (writtenInTransaction(tables)) {
+            bypass.increment();     // 아직 커밋되지 않은 내 변경이 보여야 하므로 캐시를 쓰지도, 채우지도 않는다
+            return query.fetch();
+        }
+
+        String key = keyOf(metadata);
+        CachedResult cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (cached.isCurrent(this)) {
+                hits.increment();
+                age.record(System.nanoTime() - cached.createdAt, TimeUnit.NANOSECONDS);
+                return cast(cached.rows);
+            }
+            stale.increment();
+            cache.asMap().remove(key, cached);
+        } else {
+            misses.increment();
+        }
+
+        long[] loadedVersions = versions(tables);   // 실행 전에 읽어야 실행 중에 들어온 쓰기도 잡힌다
+        List<T> rows = query.fetch();
+        if (readsReplica() && recentlyInvalidated(tables)) {
+            return rows;    // 복제본이 아직 따라오지 못한 결과일 수 있다. 내주기만 하고 캐시하지 않는다
+        }
+        cache.put(key, new CachedResult(tables, loadedVersions, Collections.unmodifiableList(new ArrayList<>(rows)), System.nanoTime()));
+        return rows;
+    }
+
+    /**
+     * 테이블에 쓰기가 있었음을 알린다. 트랜잭션 중이면 커밋/롤백 후에 한 번 더 무효화한다.
+     */
+    public void invalidate(String table) {
+        String name = table.toLowerCase(Locale.ROOT);
+        bump(name);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<String> written = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (written == null) {
+            Set<String> tables = new HashSet<>();
+            written = tables;
+            TransactionSynchronizationManager.bindResource(this, tables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueryResultCache.this);
+                    tables.forEach(QueryResultCache.this::bump);    // 트랜잭션 중에 다른 요청이 채운 결과도 버리게
+                }
+            });
+        }
+        written.add(name);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private void bump(String table) {
+        versions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+        invalidatedAt.computeIfAbsent(table, t -> new AtomicLong()).set(System.nanoTime());
+        invalidations.computeIfAbsent(table, t -> Counter.builder("querydsl.result-cache.invalidations")
+                .description("테이블별 무효화 횟수")
+                .tag("table", t)
+                .register(registry)).increment();
+    }
+
+    private long version(String table) {
+        AtomicLong version = versions.get(table);
+        return version != null ? version.get() : 0L;
+    }
+
+    private long[] versions(String[] tables) {
+        long[] result = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            result[i] = version(tables[i]);
+        }
+        return result;
+    }
+
+    /**
+     * ReplicationRoutingDataSource 와 같은 기준. 읽기 전용 트랜잭션이면 복제본에서 읽는다.
+     */
+    private boolean readsReplica() {
+        return replication && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private boolean recentlyInvalidated(String[] tables) {
+        long now = System.nanoTime();
+        for (String table : tables) {
+            AtomicLong at = invalidatedAt.get(table);
+            if (at != null && now - at.get() < replicaLagNanos) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean writtenInTransaction(String[] tables) {
+        Object written = TransactionSynchronizationManager.getResource(this);
+        if (written == null) {
+            return false;
+        }
+        for (String table : tables) {
+            if (((Set<?>) written).contains(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 쿼리가 실행될 때 하이버네이트가 하는 auto flush 를 먼저 한다. flush 된 변경이 있으면 이 트랜잭션은 캐시를 거치지 않는다.
+     */
+    private void flushIfNeeded() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        Session session = em.unwrap(Session.class);
+        FlushMode flushMode = session.getHibernateFlushMode();
+        if (flushMode == FlushMode.AUTO || flushMode == FlushMode.ALWAYS) {
+            session.flush();
+        }
+    }
+
+    private String[] tables(QueryMetadata metadata) {
+        Set<Class<?>> entities = new HashSet<>();
+        collectEntities(metadata, entities);
+
+        Set<String> tables = new HashSet<>();
+        for (Class<?> entity : entities) {
+            Collections.addAll(tables, tablesByEntity.computeIfAbsent(entity, this::tablesOf));
+        }
+        return tables.toArray(String[]::new);
+    }
+
+    private String[] tablesOf(Class<?> entity) {
+        EntityPersister persister = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(entity);
+        List<String> tables = new ArrayList<>();
+        persister.visitQuerySpaces(table -> tables.add(table.toLowerCase(Locale.ROOT)));
+        return tables.toArray(String[]::new);
+    }
+
+    private static void collectEntities(QueryMetadata metadata, Set<Class<?>> entities) {
+        metadata.getJoins().forEach(join -> {
+            collectEntities(join.getTarget(), entities);
+            collectEntities(join.getCondition(), entities);
+        });
+        collectEntities(metadata.getProjection(), entities);
+        collectEntities(metadata.getWhere(), entities);
+        collectEntities(metadata.getHaving(), entities);
+        metadata.getGroupBy().forEach(groupBy -> collectEntities(groupBy, entities));
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            collectEntities(order.getTarget(), entities);
+        }
+    }
+
+    private static void collectEntities(Expression<?> expression, Set<Class<?>> entities) {
+        if (expression instanceof Path<?> path) {
+            for (Path<?> p = path; p != null; p = p.getMetadata().getParent()) {   // member.team.name 은 member, team 둘 다 읽는다
+                Class<?> type = p instanceof CollectionExpression<?, ?> collection ? collection.getParameter(0) : p.getType();
+                if (type.isAnnotationPresent(Entity.class)) {
+                    entities.add(type);
+                }
+            }
+        } else if (expression instanceof Operation<?> operation) {
+            operation.getArgs().forEach(arg -> collectEntities(arg, entities));
+        } else if (expression instanceof TemplateExpression<?> template) {
+            template.getArgs().forEach(arg -> {
+                if (arg instanceof Expression<?> argExpression) {
+                    collectEntities(argExpression, entities);
+                }
+            });
+        } else if (expression instanceof FactoryExpression<?> factory) {
+            factory.getArgs().forEach(arg -> collectEntities(arg, entities));
+        } else if (expression instanceof SubQueryExpression<?> subQuery) {
+            collectEntities(subQuery.getMetadata(), entities);
+        }
+    }
+
+    private static boolean containsEntity(Expression<?> projection) {
+        if (projection instanceof EntityPath<?>) {
+            return true;
+        }
+        return projection instanceof FactoryExpression<?> factory
+                && factory.getArgs().stream().anyMatch(QueryResultCache::containsEntity);
+    }
+
+    private static String keyOf(QueryMetadata metadata) {
+        JPQLSerializer serializer = new JPQLSerializer(TEMPLATES);
+        serializer.serialize(metadata, false, null);
+        return serializer + " " + serializer.getConstants()
+                + " " + metadata.getModifiers()
+                + " " + metadata.getProjection().getType().getName();
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count() + stale.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private Counter requests(String result) {
+        return Counter.builder("querydsl.result-cache.requests")
+                .description("결과 캐시 조회 수")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> cast(List<?> rows) {
+        return (List<T>) rows;
+    }
+
+    private record CachedResult(String[] tables, long[] versions, List<?> rows, long createdAt) {
+
+        boolean isCurrent(QueryResultCache owner) {
+            for (int i = 0; i < tables.length; i++) {
+                if (owner.version(tables[i]) != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 하이버네이트가 실행하는 insert/update/delete/merge SQL 의 대상 테이블을 QueryResultCache 에 알린다. SQL은 바꾸지 않는다.
+ * 엔티티 flush, Querydsl 벌크 절, JPQL/네이티브 벌크 연산 모두 여기를 지나간다.
+ */
+@RequiredArgsConstructor
+public class QueryResultCacheInvalidator implements StatementInspector {
+
+    private final QueryResultCache queryResultCache;
+
+    @Override
+    public String inspect(String sql) {
+        String table = writtenTable(sql);
+        if (table != null) {
+            queryResultCache.invalidate(table);
+        }
+        return sql;
+    }
+
+    /**
+     * 쓰기 SQL 이면 대상 테이블 이름, 아니면 null. 대부분인 select 는 첫 글자만 보고 넘긴다.
+     * 하이버네이트가 앞에 붙이는 주석(use_sql_comments)은 건너뛴다.
+     */
+    static String writtenTable(String sql) {
+        int i = skipComments(sql, 0);
+        if (i >= sql.length()) {
+            return null;
+        }
+        char first = Character.toLowerCase(sql.charAt(i));
+        if (first != 'i' && first != 'u' && first != 'd' && first != 'm') {
+            return null;
+        }
+
+        String keyword = word(sql, i);
+        i += keyword.length();
+        switch (keyword.toLowerCase()) {
+            case "insert", "delete", "merge" -> {   // insert into, delete from, merge into
+                i = skipWhitespace(sql, i);
+                i += word(sql, i).length();
+            }
+            case "update" -> {
+            }
+            default -> {
+                return null;
+            }
+        }
+        String table = word(sql, skipWhitespace(sql, i));
+        int dot = table.lastIndexOf('.');
+        table = dot >= 0 ? table.substring(dot + 1) : table;
+        table = table.replace("\"", "").replace("`", "");
+        return table.isEmpty() ? null : table;
+    }
+
+    private static int skipComments(String sql, int i) {
+        i = skipWhitespace(sql, i);
+        while (sql.startsWith("/*", i)) {
+            int end = sql.indexOf("*/", i + 2);
+            if (end < 0) {
+                return sql.length();
+            }
+            i = skipWhitespace(sql, end + 2);
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(String sql, int i) {
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String word(String sql, int start) {
+        int end = start;
+        while (end < sql.length() && !Character.isWhitespace(sql.charAt(end)) && sql.charAt(end) != '(') {
+            end++;
+        }
+        return sql.substring(start, end);
+    }
+}
@@ -0,0 +1,155 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 윈도우 함수 (하이버네이트 6 HQL의 over 절).
+ * select 절의 상관 서브쿼리는 row 마다 실행되지만 윈도우 함수는 한 번 스캔하면서 같이 계산된다.
+ *
+ * <pre>
+ * queryFactory
+ *         .select(member.username,
+ *                 avg(member.age).over(partitionBy(member.team.id)),
+ *                 rank().over(partitionBy(member.team.id).orderBy(member.age.desc())))
+ *         .from(member)
+ *         .fetch();
+ * </pre>
+ */
+public final class WindowFunctions {
+
+    private WindowFunctions() {
+    }
+
+    public static Function<Double> avg(NumberExpression<?> expression) {
+        return new Function<>(Double.class, "avg", expression);
+    }
+
+    /**
+     * 정수 컬럼의 합. 하이버네이트는 정수 합계를 Long 으로 돌려준다.
+     */
+    public static Function<Long> sum(NumberExpression<?> expression) {
+        return sum(expression, Long.class);
+    }
+
+    public static <T extends Number & Comparable<?>> Function<T> sum(NumberExpression<?> expression, Class<T> type) {
+        return new Function<>(type, "sum", expression);
+    }
+
+    public static Function<Long> count(Expression<?> expression) {
+        return new Function<>(Long.class, "count", expression);
+    }
+
+    public static <T extends Number & Comparable<?>> Function<T> min(NumberExpression<T> expression) {
+        return new Function<>(expression.getType(), "min", expression);
+    }
+
+    public static <T extends Number & Comparable<?>> Function<T> max(NumberExpression<T> expression) {
+        return new Function<>(expression.getType(), "max", expression);
+    }
+
+    public static Function<Long> rank() {
+        return new Function<>(Long.class, "rank", null);
+    }
+
+    public static Function<Long> denseRank() {
+        return new Function<>(Long.class, "dense_rank", null);
+    }
+
+    public static Function<Long> rowNumber() {
+        return new Function<>(Long.class, "row_number", null);
+    }
+
+    public static Window partitionBy(Expression<?>... expressions) {
+        return new Window().partitionBy(expressions);
+    }
+
+    public static Window orderBy(OrderSpecifier<?>... orders) {
+        return new Window().orderBy(orders);
+    }
+
+    public static final class Function<T extends Number & Comparable<?>> {
+
+        private final Class<? extends T> type;
+        private final String name;
+        private final Expression<?> argument;
+
+        private Function(Class<? extends T> type, String name, Expression<?> argument) {
+            this.type = type;
+            this.name = name;
+            this.argument = argument;
+        }
+
+        public NumberExpression<T> over() {
+            return over(new Window());
+        }
+
+        public NumberExpression<T> over(Window window) {
+            List<Object> args = new ArrayList<>();
+            StringBuilder template = new StringBuilder(name).append('(');
+            if (argument != null) {
+                template.append(placeholder(args, argument));
+            }
+            template.append(") over (");
+            window.appendTo(template, args);
+            template.append(')');
+            return Expressions.numberTemplate(type, template.toString(), args.toArray());
+        }
+    }
+
+    /**
+     * over (partition by ... order by ...) 의 내용
+     */
+    public static final class Window {
+
+        private final List<Expression<?>> partitions = new ArrayList<>();
+        private final List<OrderSpecifier<?>> orders = new ArrayList<>();
+
+        private Window() {
+        }
+
+        public Window partitionBy(Expression<?>... expressions) {
+            partitions.addAll(Arrays.asList(expressions));
+            return this;
+        }
+
+        public Window orderBy(OrderSpecifier<?>... orders) {
+            this.orders.addAll(Arrays.asList(orders));
+            return this;
+        }
+
+        private void appendTo(StringBuilder template, List<Object> args) {
+            if (!partitions.isEmpty()) {
+                template.append("partition by ");
+                for (int i = 0; i < partitions.size(); i++) {
+                    template.append(i > 0 ? ", " : "").append(placeholder(args, partitions.get(i)));
+                }
+            }
+            if (!orders.isEmpty()) {
+                template.append(partitions.isEmpty() ? "" : " ").append("order by ");
+                for (int i = 0; i < orders.size(); i++) {
+                    OrderSpecifier<?> order = orders.get(i);
+                    template.append(i > 0 ? ", " : "")
+                            .append(placeholder(args, order.getTarget()))
+                            .append(order.isAscending() ? " asc" : " desc");
+                    switch (order.getNullHandling()) {
+                        case NullsFirst -> template.append(" nulls first");
+                        case NullsLast -> template.append(" nulls last");
+                        default -> { }
+                    }
+                }
+            }
+        }
+    }
+
+    private static String placeholder(List<Object> args, Expression<?> expression) {
+        args.add(expression);
+        return "{" + (args.size() - 1) + "}";
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 회원 대량 적재.
+ * hibernate.jdbc.batch_size 단위로 flush 해서 insert를 JDBC 배치로 보내고,
+ * 바로 clear 해서 영속성 컨텍스트가 계속 커지지 않게 한다.
+ * id는 pooled 시퀀스(allocationSize)로 미리 확보하므로 건마다 시퀀스를 호출하지 않는다.
+ * 회원이 참조하는 팀은 미리 저장되어 있어야 한다.
+ */
+@Service
+@Transactional
+public class MemberBulkIngestService {
+
+    private final EntityManager em;
+    private final int batchSize;
+
+    public MemberBulkIngestService(EntityManager em,
+                                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.em = em;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return 저장한 회원 수
+     */
+    public long ingest(Stream<Member> members) {
+        long count = 0;
+
+        Iterator<Member> it = members.iterator();
+        while (it.hasNext()) {
+            em.persist(it.next());
+
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+
+        em.flush();
+        em.clear();
+        return count;
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 전체를 NDJSON(한 줄에 JSON 하나)으로 내보낸다.
+ * fetch()는 모든 엔티티를 List로 만들고 영속성 컨텍스트에도 쌓아두기 때문에 건수가 많으면 힙이 터진다.
+ * stream()으로 커서를 열어 fetchSize 단위로 가져오고, clearInterval 건마다 em.clear() 해서
+ * 테이블 크기와 상관없이 메모리 사용량을 일정하게 유지한다.
+ */
+@Service
+@Transactional(readOnly = true)
+public class MemberExportService {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int clearInterval;
+
+    public MemberExportService(JPAQueryFactory queryFactory,
+                               EntityManager em,
+                               ObjectMapper objectMapper,
+                               @Value("${querydsl.export.fetch-size:1000}") int fetchSize,
+                               @Value("${querydsl.export.clear-interval:1000}") int clearInterval) {
+        if (clearInterval < 1) {
+            throw new IllegalArgumentException("querydsl.export.clear-interval 은 1 이상이어야 합니다: " + clearInterval);
+        }
+        this.queryFactory = queryFactory;
+        this.em = em;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * @return 내보낸 회원 수
+     */
+    public long exportNdjson(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+
+        try (Stream<Member> stream = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()    // 팀 지연로딩으로 N+1 나지 않도록
+                .orderBy(member.id.asc())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)    // 변경감지용 스냅샷 생략
+                .stream()) {
+
+            Iterator<Member> it = stream.iterator();
+            while (it.hasNext()) {
+                writer.write(objectMapper.writeValueAsString(toDto(it.next())));
+                writer.write('\n');
+
+                if (++count % clearInterval == 0) {
+                    writer.flush();
+                    em.clear();
+                }
+            }
+        }
+
+        writer.flush();
+        return count;
+    }
+
+    private static MemberTeamDto toDto(Member m) {
+        Team t = m.getTeam();
+        return new MemberTeamDto(
+                m.getId(),
+                m.getUsername(),
+                m.getAge(),
+                t != null ? t.getId() : null,
+                t != null ? t.getName() : null);
+    }
+}
@@ -0,0 +1,348 @@
+package study.querydsl.service;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CounterListener;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * 회원 insert/update/delete 를 보고 TeamStats 를 증분 갱신한다.
+ *
+ * 하이버네이트 이벤트에서 세션별로 팀별 변화량만 모아두고(팀 이동은 이전 팀 -1, 새 팀 +1),
+ * 커밋 직전(flush 이후)에 팀마다 update 한 번으로 반영한다. 롤백되면 아무것도 반영하지 않는다.
+ * 최소/최대 나이는 빠지는 쪽으로는 증분 계산이 안되므로 회원이 빠진 팀만 그 팀 회원으로 다시 구한다.
+ *
+ * 통계 행은 팀을 만들 때 같이 만들고, 회원이 없어져도 0 으로 남겨둔다. 팀을 지울 때만 지운다.
+ *
+ * CounterUpdater 로 나이를 더하면(벌크 update) CounterListener 로 알림을 받아 그 회원들의 팀을 같은 트랜잭션에서 다시 계산한다.
+ * 그 밖의 벌크 update/delete, 트랜잭션 밖의 변경은 잡히지 않는다. TeamStatsReconciler 가 주기적으로 맞춘다.
+ * 여러 팀의 통계 행 락은 항상 팀 id 순으로 잡는다.
+ */
+@Slf4j
+@Component
+public class TeamStatsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        CounterListener {
+
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";   // SQLState 클래스 (키 중복 등)
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+    private final Map<SharedSessionContractImplementor, Pending> pendings = new ConcurrentHashMap<>();
+
+    public TeamStatsListener(EntityManagerFactory emf, EntityManager em) {
+        this.em = em;
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Team team) {
+            pending(event.getSession()).created(team.getId());
+        } else if (event.getEntity() instanceof Member) {
+            added(event.getSession(), event.getPersister(), event.getState());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member updated)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            // 이전 상태를 모르면(detached 엔티티 update) 현재 팀만 다시 계산
+            pending(event.getSession()).recompute(teamId(updated.getTeam()));
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long oldTeamId = teamId(persister, event.getOldState());
+        Long newTeamId = teamId(persister, event.getState());
+        int oldAge = age(persister, event.getOldState());
+        int newAge = age(persister, event.getState());
+        if (oldAge != newAge || !Objects.equals(oldTeamId, newTeamId)) {
+            removed(event.getSession(), persister, event.getOldState());
+            added(event.getSession(), persister, event.getState());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Team team) {
+            pending(event.getSession()).deleted(team.getId());
+        } else if (event.getEntity() instanceof Member) {
+            removed(event.getSession(), event.getPersister(), event.getDeletedState());
+        }
+    }
+
+    /**
+     * CounterUpdater 가 회원 나이를 더한 뒤. 더한 회원들이 속한 팀을 id 순으로 다시 계산한다.
+     */
+    @Override
+    public void counterAdded(EntityPath<?> entity, NumberPath<?> counter, Collection<?> ids) {
+        if (entity.getType() != Member.class || !counter.getMetadata().getName().equals(member.age.getMetadata().getName())) {
+            return;
+        }
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        List<Long> memberIds = ids.stream().map(id -> ((Number) id).longValue()).toList();
+        Set<Long> teamIds = new TreeSet<>();
+        for (int i = 0; i < memberIds.size(); i += IN_CHUNK_SIZE) {
+            teamIds.addAll(queryFactory
+                    .select(member.team.id)
+                    .distinct()
+                    .from(member)
+                    .where(member.id.in(memberIds.subList(i, Math.min(i + IN_CHUNK_SIZE, memberIds.size()))),
+                            member.team.isNotNull())
+                    .fetch());
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Long teamId : teamIds) {
+            rebuild(session, queryFactory, teamId);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void added(EventSource session, EntityPersister persister, Object[] state) {
+        Long teamId = teamId(persister, state);
+        if (teamId != null) {
+            pending(session).delta(teamId).add(age(persister, state));
+        }
+    }
+
+    private void removed(EventSource session, EntityPersister persister, Object[] state) {
+        Long teamId = teamId(persister, state);
+        if (teamId != null) {
+            pending(session).delta(teamId).remove(age(persister, state));
+        }
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        return teamId((Team) state[persister.getEntityMetamodel().getPropertyIndex("team")]);
+    }
+
+    private static Long teamId(Team team) {
+        return team != null ? team.getId() : null;    // 프록시여도 id 는 초기화 없이 꺼낸다
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    /**
+     * 세션의 현재 트랜잭션에 묶인 변화량. 트랜잭션 밖(auto commit)이면 모으지 않고 버린다.
+     * 커밋할 때 하이버네이트가 flush 를 마친 뒤 beforeTransactionCompletion 에서 반영한다.
+     */
+    private Pending pending(EventSource session) {
+        if (!session.isTransactionInProgress()) {
+            log.debug("트랜잭션 밖의 회원 변경은 TeamStats 에 반영되지 않음 (reconcile 로 보정)");
+            return new Pending();
+        }
+        return pendings.computeIfAbsent(session, key -> {
+            Pending pending = new Pending();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) pending);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) pending);
+            return pending;
+        });
+    }
+
+    private final class Pending implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final Map<Long, Delta> deltas = new LinkedHashMap<>();
+
+        Delta delta(Long teamId) {
+            return deltas.computeIfAbsent(teamId, id -> new Delta());
+        }
+
+        void created(Long teamId) {
+            delta(teamId).created = true;
+        }
+
+        void deleted(Long teamId) {
+            delta(teamId).deleted = true;
+        }
+
+        void recompute(Long teamId) {
+            if (teamId != null) {
+                delta(teamId).recompute = true;
+            }
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(session);
+            while (!deltas.isEmpty()) {
+                Map<Long, Delta> applying = new TreeMap<>(deltas);     // 통계 행 락을 팀 id 순으로
+                deltas.clear();
+                applying.forEach((teamId, delta) -> apply(session, queryFactory, teamId, delta));
+            }
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            pendings.remove(session);   // 롤백이면 모은 변화량을 버린다
+        }
+    }
+
+    private static void apply(SessionImplementor session, JPAQueryFactory queryFactory, Long teamId, Delta delta) {
+        if (delta.deleted) {
+            queryFactory.delete(teamStats).where(teamStats.teamId.eq(teamId)).execute();
+            return;
+        }
+        if (delta.created) {
+            insertIfAbsent(session, teamId);
+        }
+
+        long updated = queryFactory
+                .update(teamStats)
+                .set(teamStats.memberCount, teamStats.memberCount.add(delta.count))
+                .set(teamStats.ageSum, teamStats.ageSum.add(delta.ageSum))
+                .set(teamStats.ageMin, delta.addedMin == null ? teamStats.ageMin : new CaseBuilder()
+                        .when(teamStats.ageMin.isNull().or(teamStats.ageMin.gt(delta.addedMin))).then(delta.addedMin)
+                        .otherwise(teamStats.ageMin))
+                .set(teamStats.ageMax, delta.addedMax == null ? teamStats.ageMax : new CaseBuilder()
+                        .when(teamStats.ageMax.isNull().or(teamStats.ageMax.lt(delta.addedMax))).then(delta.addedMax)
+                        .otherwise(teamStats.ageMax))
+                .where(teamStats.teamId.eq(teamId))
+                .execute();
+
+        if (updated == 0 || delta.recompute) {
+            // 통계 행이 없던 팀(기능 도입 전 데이터 등)이거나 이전 상태를 모르면 그 팀만 다시 계산
+            rebuild(session, queryFactory, teamId);
+        } else if (delta.removed) {
+            queryFactory
+                    .update(teamStats)
+                    .set(teamStats.ageMin, JPAExpressions
+                            .select(member.age.min()).from(member).where(member.team.id.eq(teamId)))
+                    .set(teamStats.ageMax, JPAExpressions
+                            .select(member.age.max()).from(member).where(member.team.id.eq(teamId)))
+                    .where(teamStats.teamId.eq(teamId))
+                    .execute();
+        }
+    }
+
+    /**
+     * 팀의 통계 행을 (없으면 만들고) 회원 테이블 기준으로 다시 계산한다. TeamStatsReconciler 도 쓴다.
+     *
+     * 통계 행 락을 먼저 잡고(select for update) 그 다음 문장에서 다시 센다. 같은 팀의 증분을 반영한 트랜잭션이 있으면
+     * 그 커밋을 기다린 뒤에 세므로 그 회원이 포함된다. 아직 증분을 반영하지 않은 트랜잭션의 회원은 안 보이고 나중에 증분으로 더해진다.
+     * 한 문장(update + 서브쿼리)으로 하면 서브쿼리는 락을 기다리기 전 시점 기준이라 먼저 커밋된 증분을 덮어쓸 수 있다.
+     */
+    static void rebuild(SessionImplementor session, JPAQueryFactory queryFactory, Long teamId) {
+        insertIfAbsent(session, teamId);
+        queryFactory
+                .select(teamStats.teamId)
+                .from(teamStats)
+                .where(teamStats.teamId.eq(teamId))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetchOne();
+        queryFactory
+                .update(teamStats)
+                .set(teamStats.memberCount, JPAExpressions
+                        .select(member.count()).from(member).where(member.team.id.eq(teamId)))
+                .set(teamStats.ageSum, JPAExpressions
+                        .select(member.age.longValue().sum().coalesce(0L)).from(member).where(member.team.id.eq(teamId)))
+                .set(teamStats.ageMin, JPAExpressions
+                        .select(member.age.min()).from(member).where(member.team.id.eq(teamId)))
+                .set(teamStats.ageMax, JPAExpressions
+                        .select(member.age.max()).from(member).where(member.team.id.eq(teamId)))
+                .where(teamStats.teamId.eq(teamId))
+                .execute();
+    }
+
+    /**
+     * 통계 행이 없으면 0 으로 만든다.
+     *
+     * 통계 행이 없는 팀에 두 트랜잭션이 동시에 회원을 넣으면 둘 다 insert 하게 되고, 늦은 쪽은 키 중복으로 실패한다.
+     * 이 실패가 커밋 직전에 나면 회원 저장까지 롤백되므로 savepoint 안에서 insert 하고, 중복이면 되돌린 뒤 있는 행을 쓴다.
+     * JPA 쿼리로 실행하면 실패한 순간 트랜잭션이 rollback-only 가 되므로 JDBC 로 직접 실행한다.
+     */
+    static void insertIfAbsent(SessionImplementor session, Long teamId) {
+        session.doWork(connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "insert into team_stats (team_id, member_count, age_sum) values (?, 0, 0)")) {
+                statement.setLong(1, teamId);
+                statement.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (e.getSQLState() == null || !e.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+                    throw e;
+                }
+                log.debug("TeamStats 행이 이미 있음: teamId={}", teamId);
+            }
+        });
+    }
+
+    private static final class Delta {
+
+        private long count;
+        private long ageSum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private boolean removed;
+        private boolean created;
+        private boolean deleted;
+        private boolean recompute;
+
+        void add(int age) {
+            count++;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            ageSum -= age;
+            removed = true;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * TeamStats 를 회원 테이블 기준으로 다시 맞춘다.
+ * 벌크 연산이나 트랜잭션 밖의 변경처럼 TeamStatsListener 가 놓친 부분을 맞추는 용도.
+ * 주기는 querydsl.team-stats.reconcile-cron (기본값 "-" 는 사용 안함)
+ *
+ * 테이블을 지우고 다시 넣지 않고 팀마다 행을 고친다. (TeamStatsListener.rebuild)
+ * 그래서 동시에 커밋하는 회원 변경의 증분이 사라지거나 통계 행 insert 가 겹치지 않는다. 회원이 없는 팀도 0 으로 남긴다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamStatsReconciler {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    @Scheduled(cron = "${querydsl.team-stats.reconcile-cron:-}")
+    @Transactional
+    public int reconcile() {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        List<Long> teamIds = queryFactory
+                .select(team.id)
+                .from(team)
+                .orderBy(team.id.asc())     // 여러 행 락을 항상 같은 순서로 잡도록
+                .fetch();
+
+        for (Long teamId : teamIds) {
+            TeamStatsListener.rebuild(session, queryFactory, teamId);
+        }
+        // 벌크 delete 등으로 팀이 없어진 통계 행
+        queryFactory.delete(teamStats)
+                .where(teamStats.teamId.notIn(JPAExpressions.select(team.id).from(team)))
+                .execute();
+
+        log.info("TeamStats reconciled: {} teams", teamIds.size());
+        return teamIds.size();
+    }
+}
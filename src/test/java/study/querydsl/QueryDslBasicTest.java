@@ -10,6 +10,7 @@ import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.CaseBuilder;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
@@ -17,19 +18,22 @@ import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceUnit;
 import org.aspectj.lang.annotation.Before;
 import org.assertj.core.api.Assertions;
-import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
-import study.querydsl.entity.Team;
+import study.querydsl.repository.support.WindowFunctions;
+import study.querydsl.support.QuerydslDataJpaTest;
+import study.querydsl.support.TeamMemberFixture;
 
 import java.util.List;
 
@@ -38,32 +42,25 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
-@SpringBootTest
-@Transactional
+@QuerydslDataJpaTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class QueryDslBasicTest {
 
     @Autowired
     EntityManager em;
 
+    @Autowired
     JPAQueryFactory queryFactory;   // 필드로 빼도 동시성문제 없음.
 
-    @BeforeEach
-    public void before() {
-        queryFactory = new JPAQueryFactory(em);
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        em.persist(teamA);
-        em.persist(teamB);
-
-        Member member1 = new Member("member1", 10, teamA);
-        Member member2 = new Member("member2", 20, teamA);
+    // 기본 데이터는 클래스 시작할 때 한 번만 넣고, 각 테스트에서 바꾼 내용은 롤백된다.
+    @BeforeAll
+    public void before(@Autowired TransactionTemplate transactionTemplate) {
+        transactionTemplate.executeWithoutResult(status -> TeamMemberFixture.persist(em));
+    }
 
-        Member member3 = new Member("member3", 30, teamB);
-        Member member4 = new Member("member4", 40, teamB);
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
+    @AfterAll
+    public void after(@Autowired TransactionTemplate transactionTemplate) {
+        transactionTemplate.executeWithoutResult(status -> TeamMemberFixture.deleteAll(em));
     }
 
 
@@ -481,6 +478,26 @@ public class QueryDslBasicTest {
          * */
     }
 
+    /**
+     * 위의 select 절 서브쿼리는 회원 row 마다 실행된다.
+     * 윈도우 함수(over 절)를 쓰면 한 번 스캔하면서 팀별 평균을 같이 구할 수 있다. (WindowFunctions 참고)
+     * */
+    @Test
+    public void selectWindowFunction() {
+        NumberExpression<Double> teamAvg = WindowFunctions.avg(member.age)
+                .over(WindowFunctions.partitionBy(member.team.id));
+
+        List<Tuple> result = queryFactory
+                .select(member.username, teamAvg)
+                .from(member)
+                .fetch();
+
+        for (Tuple tuple : result) {
+            System.out.println("tuple = " + tuple);
+        }
+        assertThat(result).extracting(tuple -> tuple.get(teamAvg)).containsOnly(15.0, 35.0);
+    }
+
 
     /**
      * case문
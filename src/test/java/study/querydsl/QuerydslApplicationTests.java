@@ -20,13 +20,14 @@ class QuerydslApplicationTests {
 	@Autowired
 	EntityManager em;
 
+	@Autowired
+	JPAQueryFactory query;
 
 	@Test
 	void contextLoads() {
 		Hello hello = new Hello();
 		em.persist(hello);
 
-		JPAQueryFactory query = new JPAQueryFactory(em);
 //		QHello qHello = new QHello("h");
 		QHello qHello = QHello.hello;
 
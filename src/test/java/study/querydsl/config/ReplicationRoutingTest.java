@@ -0,0 +1,101 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 주 DB와 복제본 두 개를 각각 다른 H2 메모리 DB로 띄워서 어느 쪽 커넥션을 쓰는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "querydsl.datasource.replication.enabled=true",
+        "querydsl.datasource.replication.replicas[0].url=jdbc:h2:mem:replica0",
+        "querydsl.datasource.replication.replicas[0].username=sa",
+        "querydsl.datasource.replication.replicas[1].url=jdbc:h2:mem:replica1",
+        "querydsl.datasource.replication.replicas[1].username=sa"
+})
+class ReplicationRoutingTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void writeGoesToPrimary() {
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+
+        String url = write.execute(status -> currentUrl());
+
+        assertThat(url).isEqualTo("jdbc:h2:mem:primary");
+    }
+
+    @Test
+    public void readOnlyGoesToReplicasInTurn() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            urls.add(readOnly.execute(status -> currentUrl()));
+        }
+
+        assertThat(urls).containsOnly("jdbc:h2:mem:replica0", "jdbc:h2:mem:replica1");
+        assertThat(urls.get(0)).isNotEqualTo(urls.get(1));
+        assertThat(urls.get(1)).isNotEqualTo(urls.get(2));
+    }
+
+    @Test
+    public void readOnlyJoinsOuterWriteTransaction() {
+        // 쓰기 트랜잭션 안에서의 조회는 방금 쓴 데이터를 봐야 하므로 주 DB에 남는다
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+
+        String url = write.execute(status -> {
+            memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 1));
+            return currentUrl();
+        });
+
+        assertThat(url).isEqualTo("jdbc:h2:mem:primary");
+    }
+
+    @Test
+    public void routingMetrics() {
+        double before = routed("replica-0") + routed("replica-1");
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.execute(status -> currentUrl());
+
+        assertThat(routed("replica-0") + routed("replica-1")).isEqualTo(before + 1);
+        assertThat(meterRegistry.find("hikaricp.connections.active").tag("pool", "primary").gauge()).isNotNull();
+    }
+
+    private String currentUrl() {
+        return em.unwrap(Session.class).doReturningWork(connection -> connection.getMetaData().getURL());
+    }
+
+    private double routed(String target) {
+        return meterRegistry.get("datasource.routing").tag("target", target).counter().count();
+    }
+}
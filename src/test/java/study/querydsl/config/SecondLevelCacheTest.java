@@ -0,0 +1,76 @@
+package study.querydsl.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.SecondLevelCacheStats.RegionStats;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * READ_WRITE 캐시는 세션 시작 이후에 들어간 항목을 그 세션에서 읽지 않으므로
+ * 커밋된 데이터를 서로 다른 EntityManager 로 조회해서 확인한다.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    SecondLevelCacheStats secondLevelCacheStats;
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    public void teamLoadedFromCache() {
+        Member member1 = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member = new Member("member1", 10, teamA);
+            em.persist(member);
+            return member;
+        });
+        emf.getCache().evictAll();
+
+        RegionStats before = secondLevelCacheStats.region("team");
+
+        // 처음엔 DB에서 읽고 캐시에 넣음 (miss)
+        assertThat(teamNameOf(member1.getId())).isEqualTo("teamA");
+        // 새 영속성 컨텍스트에서 지연로딩 해도 캐시에서 가져옴 (hit)
+        assertThat(teamNameOf(member1.getId())).isEqualTo("teamA");
+
+        RegionStats after = secondLevelCacheStats.region("team");
+        assertThat(after.misses()).isGreaterThan(before.misses());
+        assertThat(after.hits() - before.hits()).isEqualTo(1);
+        assertThat(emf.getCache().contains(Team.class, member1.getTeam().getId())).isTrue();
+    }
+
+    private String teamNameOf(Long memberId) {
+        EntityManager newEm = emf.createEntityManager();
+        try {
+            return newEm.find(Member.class, memberId).getTeam().getName();
+        } finally {
+            newEm.close();
+        }
+    }
+}
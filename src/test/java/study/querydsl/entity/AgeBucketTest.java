@@ -0,0 +1,113 @@
+package study.querydsl.entity;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import study.querydsl.monitoring.StatementCounter;
+import study.querydsl.support.IndexAdvisor;
+import study.querydsl.support.QuerydslDataJpaTest;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@QuerydslDataJpaTest
+class AgeBucketTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    @BeforeEach
+    public void before() {
+        for (int age : new int[]{-1, 0, 20, 21, 30, 31}) {
+            em.persist(new Member("member" + age, age));
+        }
+        em.flush();
+    }
+
+    @Test
+    public void databaseMatchesJava() {
+        Member managed = queryFactory.selectFrom(member).where(member.username.eq("member21")).fetchOne();
+        assertThat(managed.getAgeBucket()).isEqualTo(AgeBucket.AGE_21_30);
+        em.clear();
+
+        List<Tuple> result = queryFactory
+                .select(member.age, member.ageBucket)
+                .from(member)
+                .fetch();
+
+        assertThat(result).hasSize(6);
+        for (Tuple tuple : result) {
+            assertThat(tuple.get(member.ageBucket)).isEqualTo(AgeBucket.of(tuple.get(member.age)));
+        }
+    }
+
+    @Test
+    public void setterAndBulkUpdateKeepBucket() {
+        Member member20 = queryFactory.selectFrom(member).where(member.username.eq("member20")).fetchOne();
+        member20.setAge(25);
+        assertThat(member20.getAgeBucket()).isEqualTo(AgeBucket.AGE_21_30);
+        em.flush();
+
+        queryFactory.update(member)
+                .set(member.age, member.age.add(10))
+                .where(member.username.eq("member0"))
+                .execute();
+        em.clear();
+
+        assertThat(bucketOf("member20")).isEqualTo(AgeBucket.AGE_21_30);
+        assertThat(bucketOf("member0")).isEqualTo(AgeBucket.AGE_0_20);      // 10살
+    }
+
+    @Test
+    public void groupAndFilterByBucket() {
+        List<String> statements;
+        List<Tuple> counts;
+        List<String> inBucket;
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            counts = queryFactory
+                    .select(member.ageBucket, member.count())
+                    .from(member)
+                    .groupBy(member.ageBucket)
+                    .orderBy(member.ageBucket.asc())
+                    .fetch();
+            inBucket = queryFactory
+                    .select(member.username)
+                    .from(member)
+                    .where(member.ageBucket.eq(AgeBucket.AGE_21_30))
+                    .orderBy(member.username.asc())
+                    .fetch();
+            statements = List.copyOf(scope.getStatements());
+        }
+
+        assertThat(counts).extracting(t -> t.get(member.ageBucket), t -> t.get(member.count()))
+                .containsExactly(
+                        org.assertj.core.groups.Tuple.tuple(AgeBucket.AGE_0_20, 2L),
+                        org.assertj.core.groups.Tuple.tuple(AgeBucket.AGE_21_30, 2L),
+                        org.assertj.core.groups.Tuple.tuple(AgeBucket.OTHER, 2L));
+        assertThat(inBucket).containsExactly("member21", "member30");
+
+        IndexAdvisor.Report report = new IndexAdvisor(dataSource).analyze(statements);
+        assertThat(report.fullScans()).isEmpty();
+        assertThat(report.usedIndexes()).contains("IDX_MEMBER_AGE_BUCKET");
+    }
+
+    private AgeBucket bucketOf(String username) {
+        return queryFactory
+                .select(member.ageBucket)
+                .from(member)
+                .where(member.username.eq(username))
+                .fetchOne();
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.entity;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import study.querydsl.support.IndexAdvisorExtension;
+import study.querydsl.support.QuerydslDataJpaTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@QuerydslDataJpaTest
+@ExtendWith(IndexAdvisorExtension.class)   // 검색 쿼리가 인덱스를 타는지 확인
+class UsernameSearchTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        em.persist(new Member("Member1", 10));
+        em.persist(new Member("member10", 20));
+        em.persist(new Member("member2", 30));
+        em.persist(new Member("ＵＳＥＲ_ｘ", 40));     // 전각
+        em.persist(new Member("userAx", 50));
+        em.persist(new Member(null, 60));
+    }
+
+    @Test
+    public void equalsIgnoreCase() {
+        assertThat(search(member.usernameEqualsIgnoreCase("MEMBER1"))).containsExactly("Member1");
+        assertThat(search(member.usernameEqualsIgnoreCase("user_x"))).containsExactly("ＵＳＥＲ_ｘ");
+    }
+
+    @Test
+    public void startsWith() {
+        assertThat(search(member.usernameStartsWith("MEM"))).containsExactly("Member1", "member10", "member2");
+        assertThat(search(member.usernameStartsWith("user_"))).containsExactly("ＵＳＥＲ_ｘ");     // _ 는 와일드카드가 아님
+    }
+
+    @Test
+    public void contains() {
+        assertThat(search(member.usernameContains("BER1"))).containsExactly("Member1", "member10");
+        assertThat(search(member.usernameContains("mber2"))).containsExactly("member2");
+        assertThat(search(member.usernameContains("r1m"))).isEmpty();
+    }
+
+    @Test
+    public void containsChecksOrder() {
+        em.persist(new Member("abcxbcd", 70));    // abc, bcd 조각은 있지만 abcd 는 아님
+
+        assertThat(search(member.usernameContains("abcd"))).isEmpty();
+    }
+
+    @Test
+    public void renameUpdatesGrams() {
+        Member renamed = queryFactory.selectFrom(member).where(member.usernameEqualsIgnoreCase("member2")).fetchOne();
+        renamed.setUsername("newName");
+        em.flush();
+        em.clear();
+
+        assertThat(search(member.usernameContains("member2"))).isEmpty();
+        assertThat(search(member.usernameContains("wna"))).containsExactly("newName");
+    }
+
+    @Test
+    public void emptyTermIsNoCondition() {
+        assertThat(member.usernameContains(" ")).isNull();
+        assertThat(UsernameSearch.grams("abcd")).containsExactly("abc", "bcd");
+    }
+
+    private List<String> search(Predicate predicate) {
+        return queryFactory
+                .select(member.username)
+                .from(member)
+                .where(predicate)
+                .orderBy(member.age.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+    static final String JPQL = "select member1\nfrom Member member1\nwhere member1.age >= ?1";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void before() {
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.persist(new Member("member3", 30));
+    }
+
+    @Test
+    public void recordedPerQueryShape() {
+        long before = count();
+
+        queryFactory.selectFrom(member).where(member.age.goe(20)).fetch();
+        queryFactory.selectFrom(member).where(member.age.goe(30)).fetch();  // 값만 다르면 같은 모양
+
+        assertThat(count() - before).isEqualTo(2);
+
+        DistributionSummary rows = registry.get("querydsl.query.rows").tag("query", JPQL).summary();
+        assertThat(rows.max()).isEqualTo(2);
+    }
+
+    @Test
+    public void streamRecordedOnClose() {
+        long before = count();
+        double rowsBefore = totalRows();
+
+        try (Stream<Member> stream = queryFactory.selectFrom(member).where(member.age.goe(20)).stream()) {
+            assertThat(stream.map(Member::getUsername).toList()).containsExactlyInAnyOrder("member2", "member3");
+            assertThat(count() - before).isZero();     // 닫을 때 기록
+        }
+        try (Stream<Member> stream = queryFactory.selectFrom(member).where(member.age.goe(30)).stream()) {
+            assertThat(stream.findFirst()).isPresent();
+        }
+
+        assertThat(count() - before).isEqualTo(2);
+        assertThat(totalRows() - rowsBefore).isEqualTo(3);
+    }
+
+    @Test
+    public void sqlStatementsCounted() {
+        queryFactory.selectFrom(member).where(member.age.goe(20)).fetch();
+
+        assertThat(registry.find("hibernate.statements").counters())
+                .anyMatch(c -> c.getId().getTag("sql").contains("from member"));
+    }
+
+    @Test
+    public void statementsCountedByNormalizedShape() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryMetrics metrics = new QueryMetrics(registry, Duration.ofSeconds(1), 2);
+
+        // in 목록 길이만 다른 SQL 은 한 모양이라 모양 수 제한을 하나만 쓴다
+        metrics.recordStatement("select m1_0.member_id from member m1_0 where m1_0.team_id in (?)");
+        metrics.recordStatement("select m1_0.member_id from member m1_0 where m1_0.team_id in (?,?)");
+        metrics.recordStatement("select m1_0.member_id from member m1_0 where m1_0.team_id in (?,?,?)");
+        metrics.recordStatement("select t1_0.team_id from team t1_0 where t1_0.team_id=?");
+        metrics.recordStatement("select t1_0.team_id from team t1_0 where t1_0.team_id=?");
+
+        assertThat(registry.get("hibernate.statements")
+                .tag("sql", "select m1_0.member_id from member m1_0 where m1_0.team_id in (...)").counter().count())
+                .isEqualTo(3);
+        assertThat(registry.get("hibernate.statements")
+                .tag("sql", "select t1_0.team_id from team t1_0 where t1_0.team_id=?").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.find("hibernate.statements").tag("sql", QueryMetrics.OTHER).counter()).isNull();
+
+        metrics.recordStatement("delete from member where member_id=?");   // 세 번째 모양부터 other
+        assertThat(registry.get("hibernate.statements").tag("sql", QueryMetrics.OTHER).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void defaultHints() {
+        assertThat(queryFactory.selectFrom(member).createQuery().getHints())
+                .containsEntry(SpecHints.HINT_SPEC_QUERY_TIMEOUT, 10_000)
+                .containsEntry(HibernateHints.HINT_FETCH_SIZE, 100);
+
+        // 쿼리에서 준 힌트가 우선
+        assertThat(queryFactory.selectFrom(member).setHint(HibernateHints.HINT_FETCH_SIZE, 5).createQuery().getHints())
+                .containsEntry(HibernateHints.HINT_FETCH_SIZE, 5);
+    }
+
+    private double totalRows() {
+        DistributionSummary rows = registry.find("querydsl.query.rows").tag("query", JPQL).summary();
+        return rows != null ? rows.totalAmount() : 0;
+    }
+
+    private long count() {
+        Timer timer = registry.find("querydsl.query").tag("query", JPQL).tag("outcome", "success").timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,132 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.QueryTimeoutException;
+import org.hibernate.jpa.SpecHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.InstrumentedJPAQueryFactory;
+
+import java.sql.SQLTimeoutException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 타임아웃 난 커넥션은 풀에서 버려져서 롤백할 수 없으므로 테스트 트랜잭션 없이 직접 커밋하고 정리한다.
+ */
+@SpringBootTest
+class QueryTimeoutTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    QueryMetrics queryMetrics;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 1000; i++) {
+                em.persist(new Member("timeout" + i, i));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .delete(member)
+                .where(member.username.startsWith("timeout"))
+                .execute());
+    }
+
+    @Test
+    public void timeoutCounted() {
+        QMember m2 = new QMember("m2");
+        QMember m3 = new QMember("m3");
+        long before = timeouts();
+
+        // 10억 행 조인은 1초 안에 끝나지 않는다
+        assertThatThrownBy(() -> queryFactory
+                .select(member.count())
+                .from(member, m2, m3)
+                .where(member.age.add(m2.age).gt(m3.age))
+                .setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, 1000)
+                .fetchOne())
+                .isInstanceOf(QueryTimeoutException.class);
+
+        assertThat(timeouts() - before).isEqualTo(1);
+    }
+
+    @Test
+    public void defaultTimeoutOnBulkUpdate() {
+        JPAQueryFactory oneSecond = new InstrumentedJPAQueryFactory(em, queryMetrics,
+                Map.of(SpecHints.HINT_SPEC_QUERY_TIMEOUT, 1000));
+        QMember m2 = new QMember("m2");
+        QMember m3 = new QMember("m3");
+        QMember m4 = new QMember("m4");
+
+        // 조건의 서브쿼리가 10억 행 조인이라 update 가 1초 안에 끝나지 않는다
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    oneSecond.update(member)
+                            .set(member.age, member.age.add(1))
+                            .where(member.age.longValue().lt(JPAExpressions
+                                    .select(m2.count())
+                                    .from(m2, m3, m4)
+                                    .where(m2.age.add(m3.age).gt(m4.age))))
+                            .execute();
+                } catch (RuntimeException e) {
+                    failure.set(e);
+                    throw e;
+                }
+            });
+        } catch (RuntimeException e) {
+            // 타임아웃 난 커넥션은 풀에서 버려져서 롤백도 실패할 수 있다 (TransactionSystemException). 원래 예외는 위에서 잡아둔다
+        }
+
+        assertThat(timedOut(failure.get())).as(String.valueOf(failure.get())).isTrue();
+    }
+
+    private static boolean timedOut(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException
+                    || cause instanceof org.hibernate.QueryTimeoutException
+                    || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long timeouts() {
+        return registry.find("querydsl.query").tag("outcome", "timeout").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlShapesTest {
+
+    @Test
+    public void normalize() {
+        String shape = SqlShapes.normalize("select t1_0.team_id,t1_0.name\n    from team t1_0\n    where t1_0.team_id=?");
+
+        assertThat(shape).isEqualTo("select t1_0.team_id,t1_0.name from team t1_0 where t1_0.team_id=?");
+    }
+
+    @Test
+    public void literalsAndInList() {
+        String a = SqlShapes.normalize("select * from member where username = 'member1' and member_id in (?, ?, ?)");
+        String b = SqlShapes.normalize("select * from member where username = 'it''s' and member_id in (?,?)");
+
+        assertThat(a).isEqualTo(b)
+                .isEqualTo("select * from member where username = ? and member_id in (...)");
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(OutputCaptureExtension.class)
+class TransactionStatementCounterTest {
+
+    static final String SELECT_TEAM = "select t1_0.team_id,t1_0.name from team t1_0 where t1_0.team_id=?";
+
+    TransactionStatementCounter counter = new TransactionStatementCounter(3);
+
+    @AfterEach
+    public void after() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(counter);
+    }
+
+    @Test
+    public void warnsAfterCompletionOverThreshold(CapturedOutput output) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionName("MemberService.update");
+        for (int i = 0; i < 4; i++) {
+            counter.record(SELECT_TEAM);
+        }
+        assertThat(output).doesNotContain("[N+1");    // 트랜잭션이 끝날 때 판단
+
+        complete();
+
+        assertThat(output).contains("MemberService.update - SQL 4");
+        assertThat(TransactionSynchronizationManager.getResource(counter)).isNull();
+    }
+
+    @Test
+    public void underThreshold(CapturedOutput output) {
+        TransactionSynchronizationManager.initSynchronization();
+        for (int i = 0; i < 3; i++) {
+            counter.record(SELECT_TEAM);
+        }
+
+        complete();
+
+        assertThat(output).doesNotContain("[N+1");
+    }
+
+    @Test
+    public void suspendedTransactionCountedSeparately(CapturedOutput output) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionName("outer");
+        counter.record(SELECT_TEAM);
+        counter.record(SELECT_TEAM);
+
+        // REQUIRES_NEW: 바깥 트랜잭션의 동기화를 보류하고 안쪽 트랜잭션을 시작
+        var suspended = TransactionSynchronizationManager.getSynchronizations();
+        suspended.forEach(TransactionSynchronization::suspend);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionName("inner");
+        counter.record(SELECT_TEAM);
+        counter.record(SELECT_TEAM);
+        complete();
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionName("outer");
+        suspended.forEach(sync -> {
+            sync.resume();
+            TransactionSynchronizationManager.registerSynchronization(sync);
+        });
+        counter.record(SELECT_TEAM);
+        counter.record(SELECT_TEAM);
+        complete();
+
+        assertThat(output).doesNotContain("inner - SQL");
+        assertThat(output).contains("outer - SQL 4");
+    }
+
+    @Test
+    public void outsideTransactionIgnored() {
+        counter.record(SELECT_TEAM);
+
+        assertThat(TransactionSynchronizationManager.getResource(counter)).isNull();
+    }
+
+    private static void complete() {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,178 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.IndexAdvisorExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(IndexAdvisorExtension.class)
+class MemberRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 20, teamB));   // 같은 나이는 id로 순서가 정해짐
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    public void searchByCursor() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        CursorSlice<MemberTeamDto> first = memberRepository.searchByCursor(condition, null, 3);
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+
+        CursorSlice<MemberTeamDto> second = memberRepository.searchByCursor(condition, first.getNextCursor(), 3);
+        assertThat(second.getContent()).extracting("username")
+                .containsExactly("member4");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void searchByCursor_walkAll() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        List<String> usernames = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorSlice<MemberTeamDto> slice = memberRepository.searchByCursor(condition, cursor, 1);
+            slice.getContent().forEach(dto -> usernames.add(dto.getUsername()));
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(usernames).containsExactly("member2", "member3", "member4");
+    }
+
+    @Test
+    public void searchByCursor_invalidSize() {
+        assertThatThrownBy(() -> memberRepository.searchByCursor(new MemberSearchCondition(), null, 0))
+                .hasCauseInstanceOf(IllegalArgumentException.class);     // 리포지토리 예외 변환으로 감싸진다
+    }
+
+    @Test
+    public void cursor_encodeDecode() {
+        MemberCursor cursor = MemberCursor.decode(MemberCursor.of(20, 3L).encode());
+        assertThat(cursor.getAge()).isEqualTo(20);
+        assertThat(cursor.getId()).isEqualTo(3L);
+    }
+
+    @Test
+    public void cursor_invalidToken() {
+        assertThatThrownBy(() -> MemberCursor.decode("!!"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void searchPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 3));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getTotalPages()).isEqualTo(2);
+        assertThat(result.getContent()).size().isEqualTo(3);
+    }
+
+    @Test
+    public void searchPage_teamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 1));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB");
+    }
+
+    @Test
+    public void searchPage_lastPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        // 첫 페이지가 페이지 크기보다 작으면 카운트 쿼리 없이 content 크기가 전체 건수
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.isLast()).isTrue();
+    }
+
+    @Test
+    public void searchPage_totalAfterWrite() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(memberRepository.searchPage(condition, PageRequest.of(0, 2)).getTotalElements()).isEqualTo(4);
+
+        em.persist(new Member("member5", 50));
+
+        // 목록과 전체 건수가 같이 무효화되어 한 페이지 안에서 어긋나지 않음
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 2));
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getTotalPages()).isEqualTo(3);
+    }
+
+    @Test
+    public void searchPage_walkPages() {
+        for (int i = 5; i <= 12; i++) {
+            em.persist(new Member("member" + i, 20));     // 같은 나이가 많아도 페이지가 겹치지 않아야 한다
+        }
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        List<Long> ids = new ArrayList<>();
+        Page<MemberTeamDto> page = memberRepository.searchPage(condition, PageRequest.of(0, 3, Sort.by("age")));
+        while (true) {
+            page.getContent().forEach(dto -> ids.add(dto.getMemberId()));
+            if (!page.hasNext()) {
+                break;
+            }
+            page = memberRepository.searchPage(condition, page.nextPageable());
+        }
+
+        assertThat(ids).hasSize(12).doesNotHaveDuplicates();
+        assertThat(page.getTotalPages()).isEqualTo(4);
+    }
+
+    @Test
+    public void searchPage_sort() {
+        Page<MemberTeamDto> result = memberRepository.searchPage(new MemberSearchCondition(),
+                PageRequest.of(0, 4, Sort.by(Sort.Order.desc("teamName"), Sort.Order.desc("age"))));
+
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("member4", "member3", "member2", "member1");
+        assertThatThrownBy(() -> memberRepository.searchPage(new MemberSearchCondition(),
+                PageRequest.of(0, 4, Sort.by("password"))))
+                .hasCauseInstanceOf(IllegalArgumentException.class);     // 리포지토리 예외 변환으로 감싸진다
+    }
+}
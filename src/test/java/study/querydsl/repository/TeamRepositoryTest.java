@@ -0,0 +1,89 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.MaxStatements;
+import study.querydsl.support.StatementCountExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(StatementCountExtension.class)
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @MaxStatements(2)   // 팀 1번 + 회원 1번 (첫 페이지가 페이지 크기보다 작아 카운트 생략)
+    public void searchTeamsWithMembers() {
+        Page<TeamMembersDto> result = teamRepository.searchTeamsWithMembers(PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamA", "teamB", "teamC");
+        assertThat(result.getContent().get(0).getMembers()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.getContent().get(1).getMembers()).extracting("username").containsExactly("member3", "member4");
+        assertThat(result.getContent().get(2).getMembers()).isEmpty();
+    }
+
+    @Test
+    @MaxStatements(3)   // 팀 1번 + 회원 1번 + 카운트 1번
+    public void searchTeamsWithMembers_paging() {
+        Page<TeamMembersDto> result = teamRepository.searchTeamsWithMembers(PageRequest.of(0, 2));
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamA", "teamB");
+    }
+
+    @Test
+    @MaxStatements(2)   // 팀 1번 + 회원 컬렉션 배치 로딩 1번 (default_batch_fetch_size)
+    public void membersBatchFetch() {
+        List<Team> teams = queryFactory
+                .selectFrom(team)
+                .fetch();
+
+        int memberCount = 0;
+        for (Team t : teams) {
+            memberCount += t.getMembers().size();
+        }
+        assertThat(memberCount).isEqualTo(4);
+    }
+}
@@ -0,0 +1,130 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class BulkClauseExecutorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    BulkClauseExecutor bulkClauseExecutor;
+
+    Member member1;
+    Member member3;
+    Team teamA;
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        member1 = new Member("member1", 10, teamA);
+        member3 = new Member("member3", 30, teamB);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(member3);
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    public void update() {
+        // flush 전 변경도 벌크 연산 전에 반영되어야 함
+        member3.setAge(31);
+
+        long count = bulkClauseExecutor.update(member,
+                update -> update.set(member.age, member.age.add(5)),
+                member.age.lt(28));
+
+        assertThat(count).isEqualTo(2);
+        // 영향받은 엔티티만 detach 되고 나머지는 영속성 컨텍스트에 그대로 남아 있음
+        assertThat(em.contains(member1)).isFalse();
+        assertThat(em.contains(member3)).isTrue();
+        assertThat(em.contains(teamA)).isTrue();
+
+        Member findMember = queryFactory
+                .selectFrom(member)
+                .where(member.id.eq(member1.getId()))
+                .fetchOne();
+        assertThat(findMember.getAge()).isEqualTo(15);
+        assertThat(em.find(Member.class, member3.getId()).getAge()).isEqualTo(31);
+    }
+
+    @Test
+    public void updateChangesMatchedColumn() {
+        // update 후에는 조건에 맞지 않게 되어도 실행 전에 찾은 엔티티가 detach 됨
+        long count = bulkClauseExecutor.update(member,
+                update -> update.set(member.age, member.age.add(100)),
+                member.age.lt(28));
+
+        assertThat(count).isEqualTo(2);
+        assertThat(em.find(Member.class, member1.getId()).getAge()).isEqualTo(110);
+    }
+
+    @Test
+    public void delete() {
+        long count = bulkClauseExecutor.delete(member, member.age.gt(18));
+
+        assertThat(count).isEqualTo(3);
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(em.contains(member3)).isFalse();
+        assertThat(em.find(Member.class, member3.getId())).isNull();
+    }
+
+    @Test
+    public void loadedCollectionsAreReloaded() {
+        em.flush();
+        em.clear();
+        Team teamA = em.find(Team.class, this.teamA.getId());
+        Team teamB = em.find(Team.class, member3.getTeam().getId());
+        assertThat(teamA.getMembers()).hasSize(2);     // 컬렉션 초기화
+        assertThat(teamB.getMembers()).hasSize(2);
+        Member loadedMember1 = em.find(Member.class, member1.getId());
+
+        bulkClauseExecutor.update(member, update -> update.set(member.age, member.age.add(1)), member.age.lt(15));
+        bulkClauseExecutor.delete(member, member.age.gt(35));
+
+        // detach 된 옛 인스턴스나 지워진 엔티티가 컬렉션에 남아 있지 않음
+        assertThat(teamA.getMembers()).hasSize(2)
+                .doesNotContain(loadedMember1)
+                .extracting(Member::getAge)
+                .containsExactlyInAnyOrder(11, 20);
+        assertThat(teamB.getMembers()).extracting(Member::getUsername).containsExactly("member3");
+        assertThat(em.contains(teamA)).isTrue();
+    }
+
+    @Test
+    public void rejectsUsername() {
+        // username 을 벌크로 바꾸면 정규화 컬럼과 검색 조각이 어긋난다
+        assertThatThrownBy(() -> bulkClauseExecutor.update(member,
+                update -> update.set(member.username, "비회원"),
+                member.age.lt(28)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bulkClauseExecutor.update(member,
+                update -> update.set(new QMember("m").username, "비회원")))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(member1.getUsername()).isEqualTo("member1");
+    }
+}
@@ -0,0 +1,121 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 청크마다 커밋하므로 @Transactional 롤백 대신 직접 정리한다.
+ */
+@SpringBootTest
+class ChunkedBulkExecutorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ChunkedBulkExecutor chunkedBulkExecutor;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 25; i++) {
+                em.persist(new Member("member" + i, i));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> queryFactory.delete(member).execute());
+    }
+
+    @Test
+    public void delete() {
+        List<ChunkedBulkProgress> progress = new ArrayList<>();
+
+        ChunkedBulkProgress result = chunkedBulkExecutor.delete(member, member.age.goe(3), ChunkedBulkOptions.builder()
+                .chunkSize(10)
+                .progressListener(progress::add)
+                .build());
+
+        assertThat(result.totalRows()).isEqualTo(22);
+        assertThat(result.chunks()).isEqualTo(3);
+        assertThat(progress).extracting(ChunkedBulkProgress::chunkRows).containsExactly(10L, 10L, 2L);
+        assertThat(countMembers()).isEqualTo(3);
+    }
+
+    @Test
+    public void update() {
+        ChunkedBulkProgress result = chunkedBulkExecutor.update(member,
+                update -> update.set(member.age, member.age.add(100)),
+                member.age.lt(20),
+                ChunkedBulkOptions.builder().chunkSize(5).build());
+
+        assertThat(result.totalRows()).isEqualTo(20);
+        assertThat(result.chunks()).isEqualTo(4);
+        Long updated = transactionTemplate.execute(status -> queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.age.goe(100))
+                .fetchOne());
+        assertThat(updated).isEqualTo(20);
+    }
+
+    @Test
+    public void nothingToDelete() {
+        ChunkedBulkProgress result = chunkedBulkExecutor.delete(member, member.age.gt(100), ChunkedBulkOptions.defaults());
+
+        assertThat(result.totalRows()).isZero();
+        assertThat(result.chunks()).isZero();
+    }
+
+    @Test
+    public void invalidChunkSize() {
+        assertThatThrownBy(() -> chunkedBulkExecutor.delete(member, member.age.goe(3),
+                ChunkedBulkOptions.builder().chunkSize(0).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(countMembers()).isEqualTo(25);
+    }
+
+    @Test
+    public void rejectsUsername() {
+        assertThatThrownBy(() -> chunkedBulkExecutor.update(member,
+                update -> update.set(member.username, "renamed"),
+                member.age.lt(20),
+                ChunkedBulkOptions.defaults()))
+                .isInstanceOf(IllegalArgumentException.class);
+        Long renamed = transactionTemplate.execute(status -> queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.username.eq("renamed"))
+                .fetchOne());
+        assertThat(renamed).isZero();
+    }
+
+    private Long countMembers() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(member.count())
+                .from(member)
+                .fetchOne());
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.QuerydslDataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@QuerydslDataJpaTest
+class ColumnarBufferTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void before() {
+        Team team = new Team("teamA");
+        em.persist(team);
+        for (int i = 0; i < 3000; i++) {
+            em.persist(new Member("member" + (i % 10), i % 100, team));
+        }
+        em.persist(new Member(null, 7));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void fetchIntoColumns() {
+        ColumnarBuffer buffer = new ColumnarBuffer();
+        ColumnarBuffer.LongColumn ids = buffer.longColumn(member.id);
+        ColumnarBuffer.IntColumn ages = buffer.intColumn(member.age);
+        ColumnarBuffer.DictionaryColumn usernames = buffer.dictionaryColumn(member.username);
+
+        int rows = buffer.fetch(queryFactory.from(member).orderBy(member.id.asc()));
+
+        assertThat(rows).isEqualTo(3001);
+        assertThat(ages.get(0)).isEqualTo(0);
+        assertThat(ages.get(2999)).isEqualTo(99);
+        assertThat(usernames.get(11)).isEqualTo("member1");
+        assertThat(usernames.code(11)).isEqualTo(usernames.code(1));   // 같은 값은 같은 코드
+        assertThat(usernames.dictionary()).hasSize(10);
+        assertThat(usernames.get(3000)).isNull();
+        assertThat(ids.get(1)).isGreaterThan(ids.get(0));
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();  // 엔티티로 올리지 않음
+    }
+
+    @Test
+    public void reuseAcrossFetches() {
+        ColumnarBuffer buffer = new ColumnarBuffer();
+        ColumnarBuffer.IntColumn ages = buffer.intColumn(member.age);
+
+        buffer.fetch(queryFactory.from(member));
+        int[] array = ages.values();
+
+        int rows = buffer.fetch(queryFactory.from(member).where(member.age.lt(10)));
+
+        assertThat(rows).isEqualTo(301);
+        assertThat(ages.values()).isSameAs(array);     // 더 작은 결과는 같은 배열을 다시 씀
+        for (int i = 0; i < rows; i++) {
+            assertThat(ages.get(i)).isLessThan(10);
+        }
+    }
+
+    @Test
+    public void intOverflow() {
+        ColumnarBuffer buffer = new ColumnarBuffer();
+        buffer.intColumn(member.id.multiply(Long.valueOf(Integer.MAX_VALUE)));
+
+        assertThatThrownBy(() -> buffer.fetch(queryFactory.from(member).where(member.age.goe(1))))
+                .isInstanceOf(ArithmeticException.class);     // 잘라서 넣지 않음
+    }
+
+    @Test
+    public void recordedInQueryMetrics() {
+        ColumnarBuffer buffer = new ColumnarBuffer();
+        buffer.intColumn(member.age);
+        long before = count();
+
+        int rows = buffer.fetch(queryFactory.from(member).where(member.age.lt(10)));
+
+        assertThat(rows).isEqualTo(301);
+        assertThat(count() - before).isEqualTo(1);
+    }
+
+    private long count() {
+        return registry.find("querydsl.query").tag("outcome", "success").timers().stream()
+                .filter(timer -> timer.getId().getTag("query").contains("age < ?1"))
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
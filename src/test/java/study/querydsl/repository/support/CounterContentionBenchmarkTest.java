@@ -0,0 +1,157 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 여러 스레드가 같은 행들의 나이를 1씩 올릴 때 방식별 처리량과 정확도 비교 (./gradlew benchmark 로 실행)
+ *
+ * setter    - 엔티티를 읽어서 setAge (read-modify-write), 건마다 트랜잭션
+ * atomic    - CounterUpdater.add, 건마다 트랜잭션
+ * coalesced - CoalescingCounter 에 모았다가 100건마다 flush
+ *
+ * 같은 부하를 한 번 돌려서 워밍업하고, 나이를 0으로 되돌린 뒤 다시 돌려서 잰다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=info")
+class CounterContentionBenchmarkTest {
+
+    static final int THREADS = 8;
+    static final int INCREMENTS_PER_THREAD = 500;
+    static final int ROWS = 4;      // 행이 적을수록 경합이 심하다
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    CounterUpdater counterUpdater;
+
+    List<Long> ids;
+
+    @BeforeEach
+    public void before() {
+        ids = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                Member member = new Member("counter" + i, 0);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+    }
+
+    @Test
+    public void setter() throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        long start = measure(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Member found = em.find(Member.class, randomId());
+                    found.setAge(found.getAge() + 1);
+                });
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();     // 락 대기 시간 초과 등
+            }
+        }, () -> failures.set(0));
+        report("setter", start, failures.get());
+    }
+
+    @Test
+    public void atomic() throws Exception {
+        long start = measure(() -> transactionTemplate.executeWithoutResult(status ->
+                counterUpdater.add(member, member.age, randomId(), 1)), () -> {
+        });
+        assertThat(report("atomic", start, 0)).isEqualTo(THREADS * INCREMENTS_PER_THREAD);
+    }
+
+    @Test
+    public void coalesced() throws Exception {
+        CoalescingCounter ages = counterUpdater.coalescing(member, member.age);
+        AtomicInteger added = new AtomicInteger();
+
+        long start = measure(() -> {
+            ages.add(randomId(), 1);
+            if (added.incrementAndGet() % 100 == 0) {
+                ages.flush();
+            }
+        }, ages::flush);
+        ages.flush();
+        assertThat(report("coalesced", start, 0)).isEqualTo(THREADS * INCREMENTS_PER_THREAD);
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ROWS));
+    }
+
+    /**
+     * 워밍업 후 나이를 0으로 되돌리고 다시 실행한다.
+     *
+     * @return 측정 시작 시각
+     */
+    private long measure(Runnable increment, Runnable afterWarmUp) throws Exception {
+        run(increment);
+        afterWarmUp.run();
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("update Member m set m.age = 0").executeUpdate());
+
+        long start = System.nanoTime();
+        run(increment);
+        return start;
+    }
+
+    private void run(Runnable increment) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < INCREMENTS_PER_THREAD; j++) {
+                        increment.run();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private long report(String name, long start, int failures) {
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long expected = (long) THREADS * INCREMENTS_PER_THREAD;
+        long actual = transactionTemplate.execute(status -> ids.stream()
+                .mapToLong(id -> em.find(Member.class, id).getAge())
+                .sum());
+        System.out.printf("%s: %.0f increments/sec, sum %d / %d (lost %d, failed %d)%n",
+                name, expected / seconds, actual, expected, expected - actual - failures, failures);
+        return actual;
+    }
+}
@@ -0,0 +1,174 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.monitoring.StatementCounter;
+import study.querydsl.support.QuerydslDataJpaTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 여러 스레드가 각자 트랜잭션을 커밋하므로 테스트 트랜잭션 없이 실행하고 정리한다.
+ */
+@QuerydslDataJpaTest
+@Import(CounterUpdater.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CounterUpdaterTest {
+
+    static final int THREADS = 8;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    CounterUpdater counterUpdater;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+    }
+
+    @Test
+    public void addDetachesManagedEntity() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = new Member("member1", 10);
+            em.persist(member1);
+
+            assertThat(counterUpdater.add(member, member.age, member1.getId(), 5)).isEqualTo(1);
+
+            assertThat(em.contains(member1)).isFalse();
+            assertThat(em.find(Member.class, member1.getId()).getAge()).isEqualTo(15);
+        });
+    }
+
+    @Test
+    public void concurrentAdd() throws Exception {
+        Long id = persist(1).get(0);
+
+        run(() -> {
+            for (int i = 0; i < 50; i++) {
+                transactionTemplate.executeWithoutResult(status -> counterUpdater.add(member, member.age, id, 1));
+            }
+        });
+
+        assertThat(ages(List.of(id))).containsExactly(THREADS * 50);
+    }
+
+    @Test
+    public void coalescing() throws Exception {
+        List<Long> ids = persist(10);
+        CoalescingCounter ages = counterUpdater.coalescing(member, member.age);
+
+        run(() -> {
+            for (int i = 0; i < 100; i++) {
+                ids.forEach(id -> ages.add(id, 1));
+            }
+        });
+        assertThat(ages.pendingRows()).isEqualTo(10);
+
+        try (StatementCounter.Scope statements = StatementCounter.start()) {
+            assertThat(ages.flush()).isEqualTo(10);
+            assertThat(statements.getStatements()).filteredOn(sql -> sql.contains("update")).hasSize(1);  // 증가량이 같으면 한 문장
+        }
+        assertThat(ages.flush()).isZero();
+        assertThat(ages(ids)).containsOnly(THREADS * 100);
+    }
+
+    @Test
+    public void concurrentFlushOfSeparateCounters() throws Exception {
+        List<Long> ids = persist(20);
+        AtomicInteger threads = new AtomicInteger();
+
+        run(() -> {
+            // 스레드마다 다른 카운터, 스레드/행마다 다른 증가량. 여러 서버에서 같은 행들을 동시에 반영하는 경우
+            int thread = threads.getAndIncrement();
+            CoalescingCounter ages = counterUpdater.coalescing(member, member.age);
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < ids.size(); i++) {
+                    ages.add(ids.get(i), delta(thread, i));
+                }
+                ages.flush();
+            }
+        });
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            int sum = 0;
+            for (int thread = 0; thread < THREADS; thread++) {
+                sum += 20 * delta(thread, i);
+            }
+            expected.add(sum);
+        }
+        assertThat(ages(ids)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void flushIsIndependentOfCallerTransaction() {
+        Long id = persist(1).get(0);
+        CoalescingCounter ages = counterUpdater.coalescing(member, member.age);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            ages.add(id, 3);
+            ages.flush();
+            status.setRollbackOnly();   // 바깥 트랜잭션이 롤백돼도 반영된 증가량은 남는다
+        });
+
+        assertThat(ages.pendingRows()).isZero();
+        assertThat(ages(List.of(id))).containsExactly(3);
+    }
+
+    private static int delta(int thread, int row) {
+        return (thread + row) % 3 + 1;
+    }
+
+    private List<Long> persist(int count) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Member member = new Member("member" + i, 0);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+    }
+
+    private List<Integer> ages(List<Long> ids) {
+        return transactionTemplate.execute(status -> ids.stream()
+                .map(id -> em.find(Member.class, id).getAge())
+                .toList());
+    }
+
+    private static void run(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.support.QuerydslDataJpaTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@QuerydslDataJpaTest
+class DirectProjectionsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.persist(new Member(null, 30, team));
+    }
+
+    @Test
+    public void bean() {
+        List<MemberDto> result = queryFactory
+                .select(DirectProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        List<MemberDto> expected = queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+        assertThat(result).isEqualTo(expected);
+        assertThat(result.get(2).getUsername()).isNull();   // null 은 건너뜀
+    }
+
+    @Test
+    public void fieldsWithAlias() {
+        QMember memberSub = new QMember("memberSub");
+
+        List<UserDto> result = queryFactory
+                .select(DirectProjections.fields(UserDto.class,
+                        member.username.as("name"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub), "age")))
+                .from(member)
+                .where(member.username.isNotNull())
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).extracting(UserDto::getName).containsExactly("member1", "member2");
+        assertThat(result).extracting(UserDto::getAge).containsOnly(30);
+    }
+
+    @Test
+    public void sameShapeSharesPlan() {
+        DirectProjections.DirectBean<MemberDto> firstBean = DirectProjections.bean(MemberDto.class, member.username, member.age);
+        DirectProjections.DirectBean<MemberDto> secondBean = DirectProjections.bean(MemberDto.class, member.username, member.age);
+        assertThat(secondBean.plan()).isSameAs(firstBean.plan());
+        assertThat(DirectProjections.fields(MemberDto.class, member.username, member.age).plan()).isNotSameAs(firstBean.plan());
+        assertThat(DirectProjections.bean(MemberDto.class, member.age, member.username).plan()).isNotSameAs(firstBean.plan());
+
+        MemberDto first = firstBean.newInstance("a", 1);
+        MemberDto second = secondBean.newInstance("b", null);
+
+        assertThat(first.getUsername()).isEqualTo("a");
+        assertThat(first.getAge()).isEqualTo(1);
+        assertThat(second.getAge()).isZero();
+    }
+
+    @Test
+    public void unknownProperty() {
+        assertThatThrownBy(() -> DirectProjections.bean(MemberDto.class, member.id))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DirectProjections.fields(UserDto.class, member.username))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,126 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.MaxStatements;
+import study.querydsl.support.QuerydslDataJpaTest;
+import study.querydsl.support.StatementCountExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@QuerydslDataJpaTest
+@Import(IdsFirstPager.class)
+@ExtendWith(StatementCountExtension.class)
+class IdsFirstPagerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    IdsFirstPager idsFirstPager;
+
+    @BeforeEach
+    public void before() {
+        for (int t = 0; t < 5; t++) {
+            Team team = new Team("team" + t);
+            em.persist(team);
+            for (int m = 0; m < 3; m++) {
+                em.persist(new Member("member" + t + m, 10 * t + m, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @MaxStatements(3)   // id 페이지 + 그래프 + 카운트
+    public void collectionFetchJoin() {
+        Page<Team> page = idsFirstPager.fetchPage(queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member).fetchJoin()
+                .orderBy(team.name.desc()), PageRequest.of(1, 2));
+
+        assertThat(page.getContent()).extracting("name").containsExactly("team2", "team1");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        for (Team t : page.getContent()) {
+            assertThat(emf.getPersistenceUnitUtil().isLoaded(t, "members")).isTrue();
+            assertThat(t.getMembers()).hasSize(3);
+        }
+    }
+
+    @Test
+    @MaxStatements(3)
+    public void toOneFetchJoinWithConditionOnJoinedAlias() {
+        Page<Member> page = idsFirstPager.fetchPage(queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(team.name.in("team1", "team3"))
+                .orderBy(member.age.desc()), PageRequest.of(0, 4));
+
+        assertThat(page.getContent()).extracting("username")
+                .containsExactly("member32", "member31", "member30", "member12");
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(emf.getPersistenceUnitUtil().isLoaded(page.getContent().get(0).getTeam())).isTrue();
+    }
+
+    @Test
+    public void conditionOnCollectionAlias() {
+        // 회원 조건으로 팀을 거르면 id 쿼리에도 컬렉션 조인이 남는다 (팀 id 로 group by)
+        // team2 는 20, 21, 22 중 20 이 조건에 맞지 않는다
+        Page<Team> page = idsFirstPager.fetchPage(queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member).fetchJoin()
+                .where(member.age.goe(21))
+                .orderBy(team.name.asc()), PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).extracting("name").containsExactly("team2", "team3");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        // 조건은 팀을 고를 때만 쓰고, 페치 조인한 회원 컬렉션은 팀의 회원 전체
+        assertThat(page.getContent().get(0).getMembers()).extracting("age").containsExactlyInAnyOrder(20, 21, 22);
+    }
+
+    @Test
+    public void orderByCollectionAlias() {
+        // 팀마다 회원이 3명이라 그대로 정렬하면 팀 id 가 3번씩 나온다. 팀별 최소/최대 나이로 모아서 팀 단위로 페이징
+        Page<Team> youngestFirst = idsFirstPager.fetchPage(queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member).fetchJoin()
+                .orderBy(member.age.asc()), PageRequest.of(0, 2));
+        Page<Team> oldestFirst = idsFirstPager.fetchPage(queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member).fetchJoin()
+                .orderBy(member.age.desc()), PageRequest.of(1, 2));
+
+        assertThat(youngestFirst.getContent()).extracting("name").containsExactly("team0", "team1");
+        assertThat(oldestFirst.getContent()).extracting("name").containsExactly("team2", "team1");
+        assertThat(oldestFirst.getTotalElements()).isEqualTo(5);
+        assertThat(oldestFirst.getContent().get(0).getMembers()).hasSize(3);
+    }
+
+    @Test
+    public void onlyEntityQueries() {
+        assertThatThrownBy(() -> idsFirstPager.fetchPage(queryFactory
+                .select(member.username)
+                .from(member), PageRequest.of(0, 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
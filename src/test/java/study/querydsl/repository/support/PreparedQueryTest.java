@@ -0,0 +1,150 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.ParamNotSetException;
+import com.querydsl.core.types.dsl.Param;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class PreparedQueryTest {
+
+    static final Param<String> USERNAME = new Param<>(String.class, "username");
+    static final Param<Integer> AGE = new Param<>(Integer.class, "age");
+    static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+
+    static final PreparedQueryCache.Shape<Member> USERNAME_AND_AGE = PreparedQueryCache.shape(queryFactory -> queryFactory
+            .selectFrom(member)
+            .where(member.username.eq(USERNAME), member.age.eq(AGE)));
+
+    static final PreparedQueryCache.Shape<Member> USERNAME_WITH_FETCH_SIZE = PreparedQueryCache.shape(queryFactory -> queryFactory
+            .selectFrom(member)
+            .where(member.username.eq(USERNAME))
+            .setHint(HibernateHints.HINT_FETCH_SIZE, 5));
+
+    static final AtomicInteger BUILT = new AtomicInteger();
+    static final PreparedQueryCache.Shape<Member> AGE_GOE = PreparedQueryCache.shape(queryFactory -> {
+        BUILT.incrementAndGet();
+        return queryFactory.selectFrom(member).where(member.age.goe(AGE));
+    });
+
+    static final PreparedQueryCache.Shape<MemberDto> TEAM_OLDEST = PreparedQueryCache.shape(queryFactory -> queryFactory
+            .select(new QMemberDto(member.username, member.age))
+            .from(member)
+            .join(member.team, team)
+            .where(team.name.eq(TEAM_NAME), member.age.gt(15))   // 상수는 직렬화 시점 값으로 고정
+            .orderBy(member.age.desc())
+            .limit(1));
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    PreparedQueryCache preparedQueryCache;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    public void rebind() {
+        PreparedQuery<Member> query = preparedQueryCache.get(USERNAME_AND_AGE);
+
+        Member member1 = query.bind().set(USERNAME, "member1").set(AGE, 10).fetchOne();
+        Member member3 = query.bind().set(USERNAME, "member3").set(AGE, 30).fetchOne();
+        Member none = query.bind().set(USERNAME, "member3").set(AGE, 10).fetchOne();
+
+        assertThat(member1.getUsername()).isEqualTo("member1");
+        assertThat(member3.getUsername()).isEqualTo("member3");
+        assertThat(none).isNull();
+    }
+
+    @Test
+    public void defaultHints() {
+        PreparedQuery<Member> query = preparedQueryCache.get(USERNAME_WITH_FETCH_SIZE);
+
+        assertThat(query.getHints())
+                .containsEntry(SpecHints.HINT_SPEC_QUERY_TIMEOUT, 10_000)
+                .containsEntry(HibernateHints.HINT_FETCH_SIZE, 5);     // 모양 쿼리에서 준 힌트가 우선
+        assertThat(query.bind().set(USERNAME, "member1").fetch()).hasSize(1);
+    }
+
+    @Test
+    public void shapeBuiltOnce() {
+        int before = BUILT.get();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(preparedQueryCache.get(AGE_GOE)).isSameAs(preparedQueryCache.get(AGE_GOE));
+        }
+
+        assertThat(BUILT.get() - before).isLessThanOrEqualTo(1);   // 같은 컨텍스트의 다른 테스트가 먼저 만들었을 수 있음
+        assertThat(preparedQueryCache.get(AGE_GOE)).isNotSameAs(preparedQueryCache.get(USERNAME_AND_AGE));
+    }
+
+    @Test
+    public void recordedInQueryMetrics() {
+        PreparedQuery<Member> query = preparedQueryCache.get(AGE_GOE);
+        long before = count(query.getJpql());
+
+        query.bind().set(AGE, 20).fetch();
+        query.bind().set(AGE, 40).fetchOne();
+
+        assertThat(count(query.getJpql()) - before).isEqualTo(2);
+    }
+
+    @Test
+    public void projectionWithConstantAndLimit() {
+        PreparedQuery<MemberDto> query = preparedQueryCache.get(TEAM_OLDEST);
+
+        List<MemberDto> teamA = query.bind().set(TEAM_NAME, "teamA").fetch();
+        List<MemberDto> teamB = query.bind().set(TEAM_NAME, "teamB").fetch();
+
+        assertThat(teamA).extracting("username").containsExactly("member2");
+        assertThat(teamB).extracting("username").containsExactly("member4");
+    }
+
+    @Test
+    public void paramNotSet() {
+        PreparedQuery<Member> query = preparedQueryCache.get(USERNAME_AND_AGE);
+
+        assertThatThrownBy(() -> query.bind().set(USERNAME, "member1").fetch())
+                .isInstanceOf(ParamNotSetException.class);
+    }
+
+    private long count(String jpql) {
+        Timer timer = registry.find("querydsl.query").tag("query", jpql).tag("outcome", "success").timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
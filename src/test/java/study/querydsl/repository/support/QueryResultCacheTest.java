@@ -0,0 +1,207 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.StatementCounter;
+import study.querydsl.support.QuerydslDataJpaTest;
+import study.querydsl.support.TeamMemberFixture;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 무효화는 커밋된 쓰기를 기준으로 하므로 테스트 트랜잭션 없이 직접 커밋하고 정리한다.
+ */
+@QuerydslDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryResultCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    QueryResultCache queryResultCache;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> TeamMemberFixture.persist(em));
+        queryResultCache.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> TeamMemberFixture.deleteAll(em));
+    }
+
+    @Test
+    public void hit() {
+        double hits = requests("hit");
+
+        assertThat(usernames(teamA())).containsExactly("member1", "member2");
+        try (StatementCounter.Scope statements = StatementCounter.start()) {
+            assertThat(usernames(teamA())).containsExactly("member1", "member2");
+            assertThat(statements.getCount()).isZero();
+        }
+
+        assertThat(requests("hit") - hits).isEqualTo(1);
+        assertThat(meterRegistry.get("querydsl.result-cache.hit-ratio").gauge().value()).isGreaterThan(0);
+        assertThat(meterRegistry.get("querydsl.result-cache.age").timer().count()).isPositive();
+    }
+
+    @Test
+    public void differentParameters() {
+        assertThat(usernames(teamA())).containsExactly("member1", "member2");
+        assertThat(usernames(queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamB"))
+                .orderBy(member.username.asc()))).containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void invalidatedByPersist() {
+        usernames(teamA());
+        double stale = requests("stale");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = queryFactory.selectFrom(team).where(team.name.eq("teamA")).fetchOne();
+            em.persist(new Member("member5", 50, teamA));
+        });
+
+        assertThat(usernames(teamA())).containsExactly("member1", "member2", "member5");
+        assertThat(requests("stale") - stale).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidatedByUpdateClause() {
+        usernames(teamA());
+
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, 99)
+                .where(member.username.eq("member1"))
+                .execute());
+
+        assertThat(queryResultCache.fetch(teamA())).extracting(MemberDto::getAge).containsExactly(99, 20);
+    }
+
+    @Test
+    public void invalidatedByJoinedEntity() {
+        usernames(teamA());
+
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(team)
+                .set(team.name, "teamC")
+                .where(team.name.eq("teamA"))
+                .execute());
+
+        assertThat(usernames(teamA())).isEmpty();
+    }
+
+    @Test
+    public void bypassInWritingTransaction() {
+        usernames(teamA());
+        double bypass = requests("bypass");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = queryFactory.selectFrom(team).where(team.name.eq("teamA")).fetchOne();
+            em.persist(new Member("member5", 50, teamA));
+
+            assertThat(usernames(teamA())).contains("member5");     // 아직 커밋 안된 내 변경이 보임
+            status.setRollbackOnly();
+        });
+
+        assertThat(requests("bypass") - bypass).isEqualTo(1);
+        assertThat(usernames(teamA())).containsExactly("member1", "member2");   // 롤백된 결과가 캐시에 남지 않음
+    }
+
+    @Test
+    public void replicaReadsAfterInvalidationAreNotCached() {
+        // 복제본 사용 + 복제 지연을 길게 잡은 캐시. 읽기 전용 트랜잭션의 조회는 복제본에서 읽은 것으로 본다
+        QueryResultCache replicaCache = new QueryResultCache(em, new SimpleMeterRegistry(),
+                Duration.ofSeconds(30), 100, true, Duration.ofHours(1));
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        assertThat(statementsFor(() -> readOnly.executeWithoutResult(status -> replicaCache.fetch(teamA())))).isOne();
+        assertThat(statementsFor(() -> readOnly.executeWithoutResult(status -> replicaCache.fetch(teamA())))).isZero();
+
+        replicaCache.invalidate("member");     // 커밋된 쓰기. 복제본은 아직 반영 전일 수 있다
+
+        assertThat(statementsFor(() -> readOnly.executeWithoutResult(status -> replicaCache.fetch(teamA())))).isOne();
+        assertThat(statementsFor(() -> readOnly.executeWithoutResult(status -> replicaCache.fetch(teamA())))).isOne();
+        // 주 DB에서 읽은 결과는 바로 캐시한다
+        assertThat(statementsFor(() -> transactionTemplate.executeWithoutResult(status -> replicaCache.fetch(teamA())))).isOne();
+        assertThat(statementsFor(() -> readOnly.executeWithoutResult(status -> replicaCache.fetch(teamA())))).isZero();
+    }
+
+    @Test
+    public void entityProjection() {
+        assertThatThrownBy(() -> queryResultCache.fetch(queryFactory.selectFrom(member)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void writtenTable() {
+        assertThat(QueryResultCacheInvalidator.writtenTable(
+                "/* insert for study.querydsl.entity.Member */insert into member (age,team_id,username,member_id) values (?,?,?,?)"))
+                .isEqualTo("member");
+        assertThat(QueryResultCacheInvalidator.writtenTable("update team set name=? where team_id=?")).isEqualTo("team");
+        assertThat(QueryResultCacheInvalidator.writtenTable("delete from PUBLIC.\"MEMBER\" m1_0 where m1_0.age>?")).isEqualTo("MEMBER");
+        assertThat(QueryResultCacheInvalidator.writtenTable("merge into team_stats(team_id) values (?)")).isEqualTo("team_stats");
+        assertThat(QueryResultCacheInvalidator.writtenTable("select m1_0.member_id from member m1_0")).isNull();
+    }
+
+    private JPAQuery<MemberDto> teamA() {
+        return queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamA"))
+                .orderBy(member.username.asc());
+    }
+
+    private List<String> usernames(JPAQuery<MemberDto> query) {
+        return queryResultCache.fetch(query).stream().map(MemberDto::getUsername).toList();
+    }
+
+    private static long statementsFor(Runnable task) {
+        try (StatementCounter.Scope statements = StatementCounter.start()) {
+            task.run();
+            return statements.getCount();
+        }
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("querydsl.result-cache.requests").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import study.querydsl.support.MaxStatements;
+import study.querydsl.support.QuerydslDataJpaTest;
+import study.querydsl.support.StatementCountExtension;
+import study.querydsl.support.TeamMemberFixture;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.support.WindowFunctions.*;
+
+@QuerydslDataJpaTest
+@ExtendWith(StatementCountExtension.class)
+class WindowFunctionsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        TeamMemberFixture.persist(em);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @MaxStatements(1)   // 팀 평균과 팀 내 순위를 회원 조회 한 번에 계산
+    public void teamAverageAndRank() {
+        NumberExpression<Double> teamAvg = avg(member.age).over(partitionBy(member.team.id));
+        NumberExpression<Long> teamRank = rank().over(partitionBy(member.team.id).orderBy(member.age.desc()));
+
+        List<Tuple> result = queryFactory
+                .select(member.username, teamAvg, teamRank)
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result)
+                .extracting(t -> t.get(member.username), t -> t.get(teamAvg), t -> t.get(teamRank))
+                .containsExactly(
+                        tuple("member1", 15.0, 2L),
+                        tuple("member2", 15.0, 1L),
+                        tuple("member3", 35.0, 2L),
+                        tuple("member4", 35.0, 1L));
+    }
+
+    @Test
+    public void runningSumAndRowNumber() {
+        NumberExpression<Long> runningSum = sum(member.age).over(orderBy(member.age.asc()));
+        NumberExpression<Long> rowNumber = rowNumber().over(orderBy(member.age.desc().nullsLast()));
+
+        List<Tuple> result = queryFactory
+                .select(member.username, runningSum, rowNumber)
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result)
+                .extracting(t -> t.get(runningSum), t -> t.get(rowNumber))
+                .containsExactly(
+                        tuple(10L, 4L),
+                        tuple(30L, 3L),
+                        tuple(60L, 2L),
+                        tuple(100L, 1L));
+    }
+
+    @Test
+    public void overWholeResult() {
+        NumberExpression<Integer> oldest = max(member.age).over();
+        NumberExpression<Long> total = count(member.id).over();
+
+        Tuple first = queryFactory
+                .select(member.username, oldest, total)
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetchFirst();
+
+        assertThat(first.get(member.username)).isEqualTo("member1");
+        assertThat(first.get(oldest)).isEqualTo(40);
+        assertThat(first.get(total)).isEqualTo(4L);
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.stream.IntStream;
+
+/**
+ * 기존 저장 방식 vs 배치 적재 처리량 비교 (./gradlew benchmark 로 실행)
+ *
+ * 기존 방식은 한 트랜잭션에서 건마다 persist 하고 끝에 한 번 flush 하며 JDBC 배치를 쓰지 않는다.
+ * 배치 설정(batch_size)은 세션 단위로 끈다. id 생성은 기존 @GeneratedValue 도 하이버네이트 6 기본값이 pooled(50) 시퀀스라 같다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=info")
+@Transactional
+class MemberBulkIngestBenchmarkTest {
+
+    static final int ROWS = 5_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkIngestService memberBulkIngestService;
+
+    @Test
+    public void perEntity() {
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.flush();
+        em.unwrap(Session.class).setJdbcBatchSize(1);   // JDBC 배치 없이 insert 를 한 건씩 보냄 (이 테스트의 세션만)
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            em.persist(new Member("member" + i, i % 100, team));
+        }
+        em.flush();     // 커밋 때 하던 flush. 테스트는 롤백하므로 직접 한다
+        report("perEntity", start);
+    }
+
+    @Test
+    public void bulkIngest() {
+        Team team = new Team("teamA");
+        em.persist(team);
+
+        long start = System.nanoTime();
+        memberBulkIngestService.ingest(IntStream.range(0, ROWS)
+                .mapToObj(i -> new Member("member" + i, i % 100, team)));
+        report("bulkIngest", start);
+    }
+
+    private static void report(String name, long start) {
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("%s: %d rows, %.2f s, %.0f rows/sec%n", name, ROWS, seconds, ROWS / seconds);
+    }
+}
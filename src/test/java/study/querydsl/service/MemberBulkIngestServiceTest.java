@@ -0,0 +1,50 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberBulkIngestServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberBulkIngestService memberBulkIngestService;
+
+    @Test
+    public void ingest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        long count = memberBulkIngestService.ingest(IntStream.range(0, 250)
+                .mapToObj(i -> new Member("member" + i, i % 100, teamA)));
+
+        assertThat(count).isEqualTo(250);
+        assertThat(em.contains(teamA)).as("배치마다 clear 되어 준영속 상태").isFalse();
+
+        Long saved = queryFactory
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamA"))
+                .fetchOne();
+        assertThat(saved).isEqualTo(250);
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "querydsl.export.clear-interval=2")
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @Test
+    public void exportNdjson() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
+        em.flush();
+        em.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = memberExportService.exportNdjson(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(3);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("\"username\":\"member1\"", "\"teamName\":\"teamA\"");
+        assertThat(lines[2]).contains("\"username\":\"member3\"", "\"teamName\":null");
+    }
+
+    @Test
+    public void invalidClearInterval() {
+        assertThatThrownBy(() -> new MemberExportService(null, null, null, 1000, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
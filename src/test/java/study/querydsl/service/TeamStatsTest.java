@@ -0,0 +1,236 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+import study.querydsl.repository.TeamStatsRepository;
+import study.querydsl.repository.support.CoalescingCounter;
+import study.querydsl.repository.support.CounterUpdater;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * 통계는 커밋 직전에 반영되므로 @Transactional 롤백 대신 직접 커밋하고 정리한다.
+ */
+@SpringBootTest
+class TeamStatsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @Autowired
+    TeamStatsReconciler teamStatsReconciler;
+
+    @Autowired
+    CounterUpdater counterUpdater;
+
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+            queryFactory.delete(teamStats).execute();
+        });
+    }
+
+    @Test
+    public void insert() {
+        assertStats(teamAId, 2, 30, 10, 20);
+        assertStats(teamBId, 2, 70, 30, 40);
+        assertThat(stats(teamAId).getAgeAvg()).isEqualTo(15.0);
+    }
+
+    @Test
+    public void updateAgeAndChangeTeam() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = findMember("member1");
+            member1.changeTeam(em.find(Team.class, teamBId));
+            findMember("member4").setAge(50);
+        });
+
+        assertStats(teamAId, 1, 20, 20, 20);   // 최소값이었던 member1 이 빠져서 다시 계산
+        assertStats(teamBId, 3, 90, 10, 50);
+    }
+
+    @Test
+    public void delete() {
+        transactionTemplate.executeWithoutResult(status -> em.remove(findMember("member2")));
+
+        assertStats(teamAId, 1, 10, 10, 10);
+    }
+
+    @Test
+    public void rollbackLeavesStatsUnchanged() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member5", 99, em.find(Team.class, teamAId)));
+            status.setRollbackOnly();
+        });
+
+        assertStats(teamAId, 2, 30, 10, 20);
+    }
+
+    @Test
+    public void reconcileAfterBulkUpdate() {
+        // 벌크 연산은 이벤트를 거치지 않으므로 통계가 어긋난다
+        transactionTemplate.executeWithoutResult(status ->
+                queryFactory.update(member).set(member.age, member.age.add(1)).execute());
+        assertStats(teamAId, 2, 30, 10, 20);
+
+        teamStatsReconciler.reconcile();
+
+        assertStats(teamAId, 2, 32, 11, 21);
+        assertStats(teamBId, 2, 72, 31, 41);
+    }
+
+    @Test
+    public void counterUpdaterAdd() {
+        // CounterUpdater 는 벌크 update 지만 같은 트랜잭션에서 팀 통계도 다시 계산한다
+        transactionTemplate.executeWithoutResult(status ->
+                counterUpdater.add(member, member.age, findMember("member1").getId(), 15));
+
+        assertStats(teamAId, 2, 45, 20, 25);
+        assertStats(teamBId, 2, 70, 30, 40);
+    }
+
+    @Test
+    public void coalescingCounterFlush() {
+        CoalescingCounter ages = counterUpdater.coalescing(member, member.age);
+        transactionTemplate.executeWithoutResult(status -> {
+            ages.add(findMember("member2").getId(), 5);
+            ages.add(findMember("member3").getId(), -25);
+            ages.add(findMember("member4").getId(), 1);
+        });
+
+        ages.flush();
+
+        assertStats(teamAId, 2, 35, 10, 25);
+        assertStats(teamBId, 2, 46, 5, 41);
+    }
+
+    @Test
+    public void emptyTeamKeepsZeroRow() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.remove(findMember("member1"));
+            em.remove(findMember("member2"));
+        });
+        assertEmpty(teamAId);
+
+        teamStatsReconciler.reconcile();
+
+        assertEmpty(teamAId);
+        assertStats(teamBId, 2, 70, 30, 40);
+    }
+
+    @Test
+    public void reconcileRecreatesMissingRows() {
+        transactionTemplate.executeWithoutResult(status -> queryFactory.delete(teamStats).execute());
+
+        assertThat(teamStatsReconciler.reconcile()).isEqualTo(2);
+
+        assertStats(teamAId, 2, 30, 10, 20);
+        assertStats(teamBId, 2, 70, 30, 40);
+    }
+
+    @Test
+    public void concurrentFirstMembersOfTeamWithoutStats() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 5; round++) {
+                // 통계 행이 없는 팀(기능 도입 전 데이터)에 동시에 첫 회원 추가. 모두 통계 행을 만들려고 한다
+                transactionTemplate.executeWithoutResult(status -> queryFactory.delete(teamStats).execute());
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    String username = "concurrent" + round + "_" + i;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        transactionTemplate.executeWithoutResult(status ->
+                                em.persist(new Member(username, 50, em.find(Team.class, teamAId))));
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();   // 통계 행 insert 가 겹쳐도 회원 저장은 실패하지 않는다
+                }
+
+                long members = 2 + (long) threads * (round + 1);
+                assertStats(teamAId, members, 30 + 50 * (members - 2), 10, 50);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+
+    private TeamStats stats(Long teamId) {
+        return teamStatsRepository.findById(teamId).orElseThrow();
+    }
+
+    private void assertEmpty(Long teamId) {
+        TeamStats stats = stats(teamId);
+        assertThat(stats.getMemberCount()).isZero();
+        assertThat(stats.getAgeSum()).isZero();
+        assertThat(stats.getAgeMin()).isNull();
+        assertThat(stats.getAgeMax()).isNull();
+    }
+
+    private void assertStats(Long teamId, long count, long ageSum, int ageMin, int ageMax) {
+        TeamStats stats = stats(teamId);
+        assertThat(stats.getMemberCount()).isEqualTo(count);
+        assertThat(stats.getAgeSum()).isEqualTo(ageSum);
+        assertThat(stats.getAgeMin()).isEqualTo(ageMin);
+        assertThat(stats.getAgeMax()).isEqualTo(ageMax);
+    }
+}
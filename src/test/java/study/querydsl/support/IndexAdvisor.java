@@ -0,0 +1,137 @@
+package study.querydsl.support;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 실행된 select 문마다 H2 의 EXPLAIN 을 돌려서 풀 스캔과 안 쓰인 인덱스를 찾는다.
+ * 파라미터는 모두 null 로 채워서 실행계획만 본다.
+ *
+ * 조건(where)이 있는데 테이블을 풀 스캔하면 인덱스가 없거나 못 타는 것으로 본다.
+ * 조건 없는 전체 조회의 풀 스캔은 정상이므로 제외한다.
+ */
+public class IndexAdvisor {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* PUBLIC\\.(\\w+)\\.tableScan");
+    private static final Pattern INDEX_USE = Pattern.compile("/\\* PUBLIC\\.(\\w+):");
+    private static final Pattern TABLE = Pattern.compile("\"PUBLIC\"\\.\"(\\w+)\"");
+
+    private final DataSource dataSource;
+
+    public IndexAdvisor(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public Report analyze(Collection<String> statements) {
+        Map<String, Set<String>> fullScans = new LinkedHashMap<>();
+        Set<String> usedIndexes = new TreeSet<>();
+        Set<String> touchedTables = new TreeSet<>();
+        List<String> skipped = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (String statement : statements) {
+                String sql = COMMENT.matcher(statement).replaceAll("").trim();
+                if (!sql.regionMatches(true, 0, "select", 0, 6)) {
+                    continue;
+                }
+                String plan;
+                try {
+                    plan = explain(connection, sql);
+                } catch (SQLException e) {
+                    skipped.add(sql);
+                    continue;
+                }
+
+                collect(TABLE.matcher(plan), touchedTables);
+                collect(INDEX_USE.matcher(plan), usedIndexes);
+                Set<String> scanned = collect(TABLE_SCAN.matcher(plan), new TreeSet<>());
+                if (!scanned.isEmpty() && sql.toLowerCase().contains(" where ")) {
+                    fullScans.put(sql, scanned);
+                }
+            }
+
+            Set<String> unusedIndexes = secondaryIndexes(connection, touchedTables);
+            unusedIndexes.removeAll(usedIndexes);
+            return new Report(fullScans, usedIndexes, unusedIndexes, skipped);
+        } catch (SQLException e) {
+            throw new IllegalStateException("EXPLAIN 실패", e);
+        }
+    }
+
+    private static String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("explain " + sql)) {
+            int parameters = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                ps.setNull(i, Types.NULL);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /**
+     * PK 를 제외한 인덱스 (FK 로 자동 생성된 인덱스 포함)
+     */
+    private static Set<String> secondaryIndexes(Connection connection, Set<String> tables) throws SQLException {
+        Set<String> indexes = new TreeSet<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "select table_name, index_name from information_schema.indexes " +
+                        "where table_schema = 'PUBLIC' and index_type_name <> 'PRIMARY KEY'");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                if (tables.contains(rs.getString(1))) {
+                    indexes.add(rs.getString(2));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private static Set<String> collect(Matcher matcher, Set<String> into) {
+        while (matcher.find()) {
+            into.add(matcher.group(1));
+        }
+        return into;
+    }
+
+    /**
+     * @param fullScans     조건이 있는데 풀 스캔한 SQL 과 그 테이블
+     * @param usedIndexes   실행계획에 나온 인덱스
+     * @param unusedIndexes 조회한 테이블의 인덱스 중 한 번도 안 쓰인 것 (테스트가 다루는 쿼리 범위 안에서)
+     * @param skipped       EXPLAIN 할 수 없었던 SQL
+     */
+    public record Report(Map<String, Set<String>> fullScans,
+                         Set<String> usedIndexes,
+                         Set<String> unusedIndexes,
+                         List<String> skipped) {
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder("인덱스 분석");
+            fullScans.forEach((sql, tables) ->
+                    report.append("\n  [풀 스캔] ").append(tables).append(" ").append(sql.replaceAll("\\s+", " ")));
+            report.append("\n  [사용된 인덱스] ").append(usedIndexes);
+            report.append("\n  [안 쓰인 인덱스] ").append(unusedIndexes);
+            if (!skipped.isEmpty()) {
+                report.append("\n  [EXPLAIN 불가] ").append(skipped.size()).append("건");
+            }
+            return report.toString();
+        }
+    }
+}
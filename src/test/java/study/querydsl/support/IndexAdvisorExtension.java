@@ -0,0 +1,47 @@
+package study.querydsl.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import study.querydsl.monitoring.StatementCounter;
+
+import javax.sql.DataSource;
+
+/**
+ * 테스트 클래스에서 실행된 SQL 을 모아 두었다가 끝나면 IndexAdvisor 로 실행계획을 확인한다.
+ * 조건이 있는데 풀 스캔한 쿼리가 있으면 실패시키고, 안 쓰인 인덱스는 로그로 남긴다.
+ *
+ * <pre>
+ * &#64;SpringBootTest
+ * &#64;ExtendWith(IndexAdvisorExtension.class)
+ * class SomeRepositoryTest { ... }
+ * </pre>
+ */
+@Slf4j
+public class IndexAdvisorExtension implements BeforeAllCallback, AfterAllCallback {
+
+    private static final Namespace NAMESPACE = Namespace.create(IndexAdvisorExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), StatementCounter.start());
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        StatementCounter.Scope scope = context.getStore(NAMESPACE)
+                .remove(context.getUniqueId(), StatementCounter.Scope.class);
+        scope.close();
+
+        DataSource dataSource = SpringExtension.getApplicationContext(context).getBean(DataSource.class);
+        IndexAdvisor.Report report = new IndexAdvisor(dataSource).analyze(scope.getStatements());
+        log.info("{}: {}", context.getDisplayName(), report);
+
+        if (!report.fullScans().isEmpty()) {
+            throw new AssertionError("인덱스를 타지 않는 조건 쿼리가 있음 - " + report);
+        }
+    }
+}
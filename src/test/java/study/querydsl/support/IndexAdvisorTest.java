@@ -0,0 +1,66 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import study.querydsl.monitoring.StatementCounter;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+@QuerydslDataJpaTest
+class IndexAdvisorTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Test
+    public void indexedConditions() {
+        IndexAdvisor.Report report = analyze(() -> {
+            queryFactory.selectFrom(member).where(member.username.eq("member1")).fetch();
+            queryFactory.selectFrom(member).where(member.age.goe(20)).orderBy(member.age.asc(), member.id.asc()).fetch();
+            queryFactory.selectFrom(member).join(member.team, team).where(team.name.eq("teamA")).fetch();
+        });
+
+        assertThat(report.fullScans()).isEmpty();
+        assertThat(report.usedIndexes()).contains("IDX_MEMBER_USERNAME", "IDX_MEMBER_AGE_ID", "IDX_TEAM_NAME");
+    }
+
+    @Test
+    public void fullScanOnUnindexedCondition() {
+        IndexAdvisor.Report report = analyze(() -> {
+            queryFactory.selectFrom(teamStats).where(teamStats.memberCount.gt(10L)).fetch();
+            queryFactory.selectFrom(member).fetch();     // 조건 없는 전체 조회는 제외
+        });
+
+        assertThat(report.fullScans()).hasSize(1);
+        assertThat(report.fullScans().values()).containsExactly(Set.of("TEAM_STATS"));
+    }
+
+    @Test
+    public void unusedIndexes() {
+        IndexAdvisor.Report report = analyze(() ->
+                queryFactory.selectFrom(member).where(member.username.eq("member1")).fetch());
+
+        assertThat(report.unusedIndexes()).contains("IDX_MEMBER_AGE_ID", "IDX_MEMBER_TEAM_AGE");
+        assertThat(report.unusedIndexes()).doesNotContain("IDX_MEMBER_USERNAME");
+    }
+
+    private IndexAdvisor.Report analyze(Runnable queries) {
+        List<String> statements;
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            queries.run();
+            statements = List.copyOf(scope.getStatements());
+        }
+        return new IndexAdvisor(dataSource).analyze(statements);
+    }
+}
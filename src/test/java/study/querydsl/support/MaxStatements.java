@@ -0,0 +1,17 @@
+package study.querydsl.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 본문에서 실행될 수 있는 최대 SQL 수. (@BeforeEach 는 세지 않음)
+ * StatementCountExtension 과 함께 사용한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxStatements {
+
+    int value();
+}
@@ -0,0 +1,30 @@
+package study.querydsl.support;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 엔티티, 리포지토리, JPAQueryFactory 만 올리는 슬라이스 테스트.
+ * 웹/캐시 통계/라우팅 같은 빈은 띄우지 않아서 전체 @SpringBootTest 보다 컨텍스트 기동이 빠르다.
+ * 테스트마다 트랜잭션을 롤백하고, DB는 이 컨텍스트 전용 메모리 H2를 쓴다.
+ *
+ * <pre>
+ * &#64;QuerydslDataJpaTest
+ * class SomeQueryTest {
+ *     &#64;Autowired JPAQueryFactory queryFactory;
+ * }
+ * </pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(QuerydslTestConfig.class)
+public @interface QuerydslDataJpaTest {
+}
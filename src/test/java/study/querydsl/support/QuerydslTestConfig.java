@@ -0,0 +1,27 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import study.querydsl.config.QuerydslConfig;
+import study.querydsl.config.StatementInspectorConfig;
+import study.querydsl.monitoring.QueryMetrics;
+import study.querydsl.repository.support.QueryResultCache;
+
+/**
+ * JPA 슬라이스 테스트에서 Querydsl 쪽 빈만 올린다.
+ * 운영과 같은 JPAQueryFactory(QueryMetrics 계측 포함)와 SQL 카운트 인스펙터를 쓰고,
+ * 액추에이터 자동설정 대신 메모리 MeterRegistry 를 사용한다.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+@Import({QuerydslConfig.class, StatementInspectorConfig.class, QueryMetrics.class,
+        QueryResultCache.class})
+public class QuerydslTestConfig {
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
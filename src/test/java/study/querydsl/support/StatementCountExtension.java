@@ -0,0 +1,47 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import study.querydsl.monitoring.StatementCounter;
+
+import java.util.Map;
+
+/**
+ * 테스트 메서드 본문에서 실행된 SQL 수를 세고, @MaxStatements 를 넘으면 실패시킨다.
+ *
+ * <pre>
+ * &#64;ExtendWith(StatementCountExtension.class)
+ * class SomeTest {
+ *     &#64;Test &#64;MaxStatements(1)
+ *     void fetchJoin() { ... }
+ * }
+ * </pre>
+ */
+public class StatementCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final Namespace NAMESPACE = Namespace.create(StatementCountExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), StatementCounter.start());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementCounter.Scope scope = context.getStore(NAMESPACE)
+                .remove(context.getUniqueId(), StatementCounter.Scope.class);
+        scope.close();
+
+        MaxStatements max = context.getRequiredTestMethod().getAnnotation(MaxStatements.class);
+        if (max != null && scope.getCount() > max.value()) {
+            StringBuilder message = new StringBuilder()
+                    .append("SQL이 ").append(scope.getCount()).append("건 실행됨 (최대 ").append(max.value()).append("건)");
+            for (Map.Entry<String, Integer> shape : scope.getShapes().entrySet()) {
+                message.append("\n  ").append(shape.getValue()).append("x ").append(shape.getKey());
+            }
+            throw new AssertionError(message.toString());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.testkit.engine.EventConditions.event;
+import static org.junit.platform.testkit.engine.EventConditions.finishedSuccessfully;
+import static org.junit.platform.testkit.engine.EventConditions.finishedWithFailure;
+import static org.junit.platform.testkit.engine.EventConditions.test;
+import static org.junit.platform.testkit.engine.TestExecutionResultConditions.instanceOf;
+import static org.junit.platform.testkit.engine.TestExecutionResultConditions.message;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * StatementCountExtension 이 @MaxStatements 를 넘은 테스트를 실제로 실패시키는지, 안쪽 테스트 클래스를 EngineTestKit 으로 돌려서 확인한다.
+ */
+class StatementCountExtensionFailureTest {
+
+    static final String RUN_FIXTURE = "statement-count-extension.fixture";
+
+    @Test
+    public void failsTestOverLimit() {
+        System.setProperty(RUN_FIXTURE, "true");
+        try {
+            EngineTestKit.engine("junit-jupiter")
+                    .selectors(selectClass(QueryPerRow.class))
+                    .execute()
+                    .testEvents()
+                    .assertThatEvents()
+                    .haveExactly(1, event(test("overLimit"), finishedWithFailure(
+                            instanceOf(AssertionError.class),
+                            message(m -> m.startsWith("SQL이 5건 실행됨 (최대 1건)")))))
+                    .haveExactly(1, event(test("withinLimit"), finishedSuccessfully()));
+        } finally {
+            System.clearProperty(RUN_FIXTURE);
+        }
+    }
+
+    /**
+     * 회원마다 팀을 따로 조회한다. (N+1) 위 테스트에서만 실행된다.
+     */
+    @SpringBootTest
+    @Transactional
+    @ExtendWith(StatementCountExtension.class)
+    @EnabledIfSystemProperty(named = RUN_FIXTURE, matches = "true")
+    static class QueryPerRow {
+
+        @Autowired
+        EntityManager em;
+
+        @Autowired
+        JPAQueryFactory queryFactory;
+
+        @BeforeEach
+        public void before() {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            em.flush();
+            em.clear();
+        }
+
+        @Test
+        @MaxStatements(1)
+        public void overLimit() {
+            for (Member m : queryFactory.selectFrom(member).fetch()) {
+                queryFactory.selectFrom(team).where(team.id.eq(m.getTeam().getId())).fetchOne();
+            }
+        }
+
+        @Test
+        @MaxStatements(5)
+        public void withinLimit() {
+            overLimit();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.StatementCounter;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(StatementCountExtension.class)
+class StatementCountExtensionTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void fetchJoin() {
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+
+        for (Member m : result) {
+            m.getTeam().getName();
+        }
+    }
+
+    @Test
+    public void queryPerRow() {
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            List<Member> result = queryFactory
+                    .selectFrom(member)
+                    .fetch();
+
+            for (Member m : result) {
+                queryFactory    // 회원마다 쿼리 한 번씩 (N+1)
+                        .selectFrom(team)
+                        .where(team.id.eq(m.getTeam().getId()))
+                        .fetchOne();
+            }
+
+            assertThat(scope.getCount()).isEqualTo(5);
+            assertThat(scope.getRepeatedShapes()).hasSize(1);
+        }
+    }
+
+    @Test
+    public void lazyLoadingBatchFetch() {
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            List<Member> result = queryFactory
+                    .selectFrom(member)
+                    .fetch();
+
+            for (Member m : result) {
+                m.getTeam().getName();  // default_batch_fetch_size 로 팀 프록시를 in 쿼리 한 번에 초기화
+            }
+
+            assertThat(scope.getCount()).isEqualTo(2);
+            assertThat(scope.getRepeatedShapes()).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.support;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 기본 데이터셋: teamA(member1 10살, member2 20살), teamB(member3 30살, member4 40살)
+ *
+ * 테스트 클래스마다 한 번 커밋해 두고(@BeforeAll), 각 테스트는 트랜잭션 롤백으로 격리한 뒤
+ * 클래스가 끝나면 지운다(@AfterAll). 테스트마다 다시 insert 하지 않아도 된다.
+ */
+public final class TeamMemberFixture {
+
+    private TeamMemberFixture() {
+    }
+
+    public static void persist(EntityManager em) {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    public static void deleteAll(EntityManager em) {
+        em.createQuery("delete from Member").executeUpdate();
+        em.createQuery("delete from Team").executeUpdate();
+    }
+}